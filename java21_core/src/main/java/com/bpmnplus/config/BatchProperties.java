@@ -0,0 +1,35 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Timeouts for the multi-file batch endpoint ({@code bpmn.batch.*}).
+ * Every file gets at most {@code file-timeout}, counted from when its own
+ * conversion starts; the whole request at most {@code batch-timeout}, counted
+ * from when it arrived, whichever expires first. Unset timeouts are derived
+ * from the CPUs available ({@link ResourceSizing}).
+ */
+@ConfigurationProperties(prefix = "bpmn.batch")
+public class BatchProperties {
+
+    private Duration fileTimeout = ResourceSizing.current().fileTimeout();
+    private Duration batchTimeout = ResourceSizing.current().batchTimeout();
+
+    public Duration getFileTimeout() {
+        return fileTimeout;
+    }
+
+    public void setFileTimeout(Duration fileTimeout) {
+        this.fileTimeout = fileTimeout;
+    }
+
+    public Duration getBatchTimeout() {
+        return batchTimeout;
+    }
+
+    public void setBatchTimeout(Duration batchTimeout) {
+        this.batchTimeout = batchTimeout;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bpmnplus.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+
+/**
+ * Resources of the container the JVM runs in, read once at startup, and the
+ * defaults derived from them for the {@code bpmn.*} properties that have no
+ * explicit value in {@code application.yml}.
+ * The JVM already reads the cgroup CPU quota for
+ * {@link Runtime#availableProcessors()} (override with
+ * {@code -XX:ActiveProcessorCount}) and sizes {@code MaxHeapSize} from the
+ * memory limit, so a 1-CPU sidecar and a 32-core batch node get admission
+ * budgets and batch deadlines to match without a different image.
+ */
+public final class ResourceSizing {
+
+    private static final long MB = 1024 * 1024;
+
+    private static final ResourceSizing CURRENT = new ResourceSizing(Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().maxMemory(), physicalMemory());
+
+    private final int cpus;
+    private final long maxHeapBytes;
+    private final long memoryLimitBytes;
+
+    ResourceSizing(int cpus, long maxHeapBytes, long memoryLimitBytes) {
+        this.cpus = Math.max(1, cpus);
+        this.maxHeapBytes = maxHeapBytes;
+        this.memoryLimitBytes = memoryLimitBytes;
+    }
+
+    public static ResourceSizing current() {
+        return CURRENT;
+    }
+
+    public int getCpus() {
+        return cpus;
+    }
+
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+
+    /**
+     * Memory visible to the JVM (the container limit when there is one), or
+     * -1 if the platform does not report it.
+     */
+    public long getMemoryLimitBytes() {
+        return memoryLimitBytes;
+    }
+
+    /** Admitted conversions: one per CPU, at least two. */
+    public int maxConcurrent() {
+        return Math.max(2, cpus);
+    }
+
+    /** Request bytes in flight: a quarter of the heap, leaving room for the parsed model and output. */
+    public long maxInFlightBytes() {
+        return maxHeapBytes / 4;
+    }
+
+    /** Admission queue length: sixteen waiting requests per CPU, between 16 and 512. */
+    public int maxQueued() {
+        return clamp(cpus * 16, 16, 512);
+    }
+
+    /**
+     * Conversion scheduler threads: one per CPU. Conversions are CPU-bound, so
+     * more threads only add context switches; request I/O stays on the event loop.
+     */
+    public int conversionThreads() {
+        return cpus;
+    }
+
+    /**
+     * Per-file batch deadline: 30 seconds with four or more CPUs, longer below
+     * that, since a batch's files share the CPUs and finish later on small nodes.
+     */
+    public Duration fileTimeout() {
+        return Duration.ofSeconds(30).multipliedBy(deadlineScale());
+    }
+
+    /** Whole-batch deadline: 2 minutes with four or more CPUs, scaled like {@link #fileTimeout()}. */
+    public Duration batchTimeout() {
+        return Duration.ofMinutes(2).multipliedBy(deadlineScale());
+    }
+
+    private int deadlineScale() {
+        return Math.max(1, 4 / cpus);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static long physicalMemory() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean bean) {
+            return bean.getTotalMemorySize();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,62 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Startup warm-up settings ({@code bpmn.warmup.*}). Before the readiness probe
+ * reports ready, a generated corpus of diagrams with {@code sizes} elements is
+ * converted in rounds until {@code stable-rounds} consecutive rounds are within
+ * {@code tolerance} of the best round so far, or {@code time-budget} runs out.
+ */
+@ConfigurationProperties(prefix = "bpmn.warmup")
+public class WarmupProperties {
+
+    private boolean enabled = false;
+    private Duration timeBudget = Duration.ofSeconds(30);
+    private double tolerance = 0.1;
+    private int stableRounds = 3;
+    private List<Integer> sizes = List.of(20, 200, 1000);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public int getStableRounds() {
+        return stableRounds;
+    }
+
+    public void setStableRounds(int stableRounds) {
+        this.stableRounds = stableRounds;
+    }
+
+    public List<Integer> getSizes() {
+        return sizes;
+    }
+
+    public void setSizes(List<Integer> sizes) {
+        this.sizes = sizes;
+    }
+}
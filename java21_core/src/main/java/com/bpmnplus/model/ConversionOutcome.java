@@ -0,0 +1,136 @@
+package com.bpmnplus.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Everything produced by one conversion: the Camunda XML or, for the JSON and
+ * CBOR formats, the encoded graph (null on failure),
+ * input size, element counts, wall-clock time per phase in milliseconds, the
+ * CPU time and heap allocation it cost (-1 where the JVM cannot measure them,
+ * e.g. on virtual threads) and, when requested, the schema validation report.
+ */
+public class ConversionOutcome {
+
+    private String xml;
+    private byte[] graph;
+    private ValidationReport validation;
+    private long inputChars;
+    private int elementCount;
+    private int flowCount;
+    private int shapeCount;
+    private double totalMillis;
+    private Map<String, Double> timings = new LinkedHashMap<>();
+    private double cpuMillis = -1;
+    private long allocatedBytes = -1;
+
+    public ConversionOutcome() {
+    }
+
+    public ConversionOutcome(String xml) {
+        this.xml = xml;
+    }
+
+    public String getXml() {
+        return xml;
+    }
+
+    public void setXml(String xml) {
+        this.xml = xml;
+    }
+
+    /**
+     * The graph encoded as requested by {@link ConversionOptions#getFormat()},
+     * or null for XML output and on failure.
+     */
+    public byte[] getGraph() {
+        return graph;
+    }
+
+    public void setGraph(byte[] graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Size of the produced output: characters of XML or bytes of graph.
+     */
+    public long getOutputLength() {
+        return xml != null ? xml.length() : graph != null ? graph.length : 0;
+    }
+
+    public ValidationReport getValidation() {
+        return validation;
+    }
+
+    public void setValidation(ValidationReport validation) {
+        this.validation = validation;
+    }
+
+    public boolean isSuccess() {
+        return xml != null || graph != null;
+    }
+
+    public long getInputChars() {
+        return inputChars;
+    }
+
+    public void setInputChars(long inputChars) {
+        this.inputChars = inputChars;
+    }
+
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    public void setElementCount(int elementCount) {
+        this.elementCount = elementCount;
+    }
+
+    public int getFlowCount() {
+        return flowCount;
+    }
+
+    public void setFlowCount(int flowCount) {
+        this.flowCount = flowCount;
+    }
+
+    public int getShapeCount() {
+        return shapeCount;
+    }
+
+    public void setShapeCount(int shapeCount) {
+        this.shapeCount = shapeCount;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(double totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public Map<String, Double> getTimings() {
+        return timings;
+    }
+
+    public void setTimings(Map<String, Double> timings) {
+        this.timings = timings;
+    }
+
+    public double getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public void setCpuMillis(double cpuMillis) {
+        this.cpuMillis = cpuMillis;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public void setAllocatedBytes(long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+}
@@ -0,0 +1,69 @@
+package com.bpmnplus.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cost of one conversion, returned with {@code profile=true}: wall-clock time
+ * overall and per phase, CPU time and bytes allocated on the heap (-1 where
+ * the JVM cannot measure them, e.g. on virtual threads).
+ */
+public class ConversionProfile {
+
+    private long inputChars;
+    private double totalMillis;
+    private double cpuMillis;
+    private long allocatedBytes;
+    private Map<String, Double> timings = new LinkedHashMap<>();
+
+    public ConversionProfile() {
+    }
+
+    public ConversionProfile(ConversionOutcome outcome) {
+        this.inputChars = outcome.getInputChars();
+        this.totalMillis = outcome.getTotalMillis();
+        this.cpuMillis = outcome.getCpuMillis();
+        this.allocatedBytes = outcome.getAllocatedBytes();
+        this.timings = outcome.getTimings();
+    }
+
+    public long getInputChars() {
+        return inputChars;
+    }
+
+    public void setInputChars(long inputChars) {
+        this.inputChars = inputChars;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(double totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public double getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public void setCpuMillis(double cpuMillis) {
+        this.cpuMillis = cpuMillis;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public void setAllocatedBytes(long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public Map<String, Double> getTimings() {
+        return timings;
+    }
+
+    public void setTimings(Map<String, Double> timings) {
+        this.timings = timings;
+    }
+}
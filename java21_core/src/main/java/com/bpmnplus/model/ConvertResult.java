@@ -0,0 +1,79 @@
+package com.bpmnplus.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * Represents the result of converting a single BPMN file.
+ */
+public class ConvertResult {
+
+    private String filename;
+    private String content;
+    private boolean success;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ValidationReport validation;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ConversionProfile profile;
+    // Graph JSON for format=json, embedded as is rather than as a string
+    @JsonRawValue
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String graph;
+
+    public ConvertResult() {
+    }
+
+    public ConvertResult(String filename, String content, boolean success) {
+        this.filename = filename;
+        this.content = content;
+        this.success = success;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public ValidationReport getValidation() {
+        return validation;
+    }
+
+    public void setValidation(ValidationReport validation) {
+        this.validation = validation;
+    }
+
+    public ConversionProfile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(ConversionProfile profile) {
+        this.profile = profile;
+    }
+
+    public String getGraph() {
+        return graph;
+    }
+
+    public void setGraph(String graph) {
+        this.graph = graph;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bpmnplus.model;
+
+import java.util.Locale;
+
+/**
+ * What a conversion produces: Camunda XML, or the converted graph (elements,
+ * flows, conditions, bounds and edge waypoints) as compact JSON or binary
+ * CBOR for tools that only need the graph and would otherwise reparse the XML.
+ */
+public enum OutputFormat {
+
+    XML("application/xml", ".bpmn"),
+    JSON("application/json", ".json"),
+    CBOR("application/cbor", ".cbor");
+
+    private final String mediaType;
+    private final String extension;
+
+    OutputFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * The format named {@code name} (case-insensitive); XML when {@code name}
+     * is null or blank.
+     */
+    public static OutputFormat of(String name) {
+        if (name == null || name.isBlank()) {
+            return XML;
+        }
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,54 @@
+package com.bpmnplus.model;
+
+/**
+ * A single schema violation found in converted output.
+ */
+public class ValidationIssue {
+
+    private String severity;
+    private int line;
+    private int column;
+    private String message;
+
+    public ValidationIssue() {
+    }
+
+    public ValidationIssue(String severity, int line, int column, String message) {
+        this.severity = severity;
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(String severity) {
+        this.severity = severity;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public void setColumn(int column) {
+        this.column = column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,318 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.model.ValidationIssue;
+import com.bpmnplus.model.ValidationReport;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates converted output against the BPMN 2.0 schemas bundled under
+ * {@code schema/bpmn}. The schema is compiled once and shared; validators are
+ * not thread-safe and are pooled.
+ * Validation runs on its own thread, reading through a pipe that the XML
+ * builder writes into, so it proceeds while the document is being produced.
+ */
+@Service
+public class BpmnSchemaValidator {
+
+    private static final Logger log = LoggerFactory.getLogger(BpmnSchemaValidator.class);
+
+    private static final String SCHEMA_ROOT = "schema/bpmn/BPMN20.xsd";
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int PIPE_CHUNKS = 8;
+    private static final char[] END = new char[0];
+    private static final int MAX_ISSUES = 100;
+
+    private final Schema schema;
+    private final ConcurrentLinkedQueue<Validator> pool = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor;
+
+    public BpmnSchemaValidator() {
+        URL root = BpmnSchemaValidator.class.getClassLoader().getResource(SCHEMA_ROOT);
+        if (root == null) {
+            throw new IllegalStateException("BPMN schema not found on classpath: " + SCHEMA_ROOT);
+        }
+        try {
+            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            this.schema = factory.newSchema(root);
+        } catch (SAXException e) {
+            throw new IllegalStateException("Cannot compile BPMN schema", e);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "bpmn-validate-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Start validating a new document. Write the XML into
+     * {@link Session#getWriter()}, close it, then call {@link Session#finish()}.
+     */
+    public Session begin() {
+        BlockingQueue<char[]> chunks = new ArrayBlockingQueue<>(PIPE_CHUNKS);
+        Future<List<ValidationIssue>> result = executor.submit(() -> validate(new ChunkReader(chunks)));
+        return new Session(new ChunkWriter(chunks), result);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<ValidationIssue> validate(Reader reader) throws IOException {
+        List<ValidationIssue> issues = new ArrayList<>();
+        Validator validator = pool.poll();
+        if (validator == null) {
+            validator = schema.newValidator();
+        }
+        validator.setErrorHandler(new ErrorHandler() {
+            @Override
+            public void warning(SAXParseException e) {
+                add(issues, "warning", e);
+            }
+
+            @Override
+            public void error(SAXParseException e) {
+                add(issues, "error", e);
+            }
+
+            @Override
+            public void fatalError(SAXParseException e) throws SAXException {
+                add(issues, "fatal", e);
+                throw e;
+            }
+        });
+        Exception failure = null;
+        try {
+            validator.validate(new StreamSource(reader));
+        } catch (SAXException e) {
+            // Fatal (not well-formed) — already recorded by the error handler
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            try {
+                // Keep the writer from blocking if validation stopped early
+                drain(reader);
+            } catch (IOException e) {
+                // After an abort the reader is interrupted; never hide why validation stopped
+                if (failure == null) {
+                    throw e;
+                }
+                failure.addSuppressed(e);
+            } finally {
+                validator.reset();
+                pool.offer(validator);
+            }
+        }
+        return issues;
+    }
+
+    private static void drain(Reader reader) throws IOException {
+        char[] discard = new char[8192];
+        while (reader.read(discard) != -1) {
+            // discard
+        }
+    }
+
+    private static void add(List<ValidationIssue> issues, String severity, SAXParseException e) {
+        if (issues.size() < MAX_ISSUES) {
+            issues.add(new ValidationIssue(severity, e.getLineNumber(), e.getColumnNumber(), e.getMessage()));
+        }
+    }
+
+    /**
+     * One in-progress validation.
+     */
+    public static final class Session {
+
+        private final Writer writer;
+        private final Future<List<ValidationIssue>> result;
+
+        private Session(Writer writer, Future<List<ValidationIssue>> result) {
+            this.writer = writer;
+            this.result = result;
+        }
+
+        public Writer getWriter() {
+            return writer;
+        }
+
+        /**
+         * Wait for the validator to reach the end of the document and build
+         * the report. The writer must have been closed.
+         */
+        public ValidationReport finish() {
+            long start = System.nanoTime();
+            ValidationReport report = new ValidationReport();
+            try {
+                List<ValidationIssue> issues = result.get();
+                report.setIssues(issues);
+                report.setValid(issues.stream().noneMatch(i -> !"warning".equals(i.getSeverity())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.cancel(true);
+                report.getIssues().add(new ValidationIssue("fatal", 0, 0, "Validation interrupted"));
+            } catch (ExecutionException e) {
+                log.error("Schema validation failed: {}", e.getCause().getMessage(), e.getCause());
+                report.getIssues().add(new ValidationIssue("fatal", 0, 0, String.valueOf(e.getCause().getMessage())));
+            }
+            report.setLatencyMillis((System.nanoTime() - start) / 1_000_000);
+            return report;
+        }
+
+        /**
+         * Abandon the validation, e.g. when building the XML failed. The
+         * validating thread is interrupted and still returns its validator to
+         * the pool.
+         */
+        public void abort() {
+            result.cancel(true);
+        }
+    }
+
+    /**
+     * Writer half of the pipe: buffers characters into fixed-size chunks and
+     * hands them to the validator thread, blocking when it falls behind.
+     */
+    private static final class ChunkWriter extends Writer {
+
+        private final BlockingQueue<char[]> chunks;
+        private final char[] buf = new char[CHUNK_SIZE];
+        private int len;
+        private boolean closed;
+
+        ChunkWriter(BlockingQueue<char[]> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int n) throws IOException {
+            while (n > 0) {
+                int step = Math.min(n, CHUNK_SIZE - len);
+                System.arraycopy(cbuf, off, buf, len, step);
+                len += step;
+                off += step;
+                n -= step;
+                if (len == CHUNK_SIZE) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int n) throws IOException {
+            while (n > 0) {
+                int step = Math.min(n, CHUNK_SIZE - len);
+                str.getChars(off, off + step, buf, len);
+                len += step;
+                off += step;
+                n -= step;
+                if (len == CHUNK_SIZE) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (len > 0) {
+                put(Arrays.copyOf(buf, len));
+                len = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                flush();
+                put(END);
+                closed = true;
+            }
+        }
+
+        private void put(char[] chunk) throws IOException {
+            try {
+                chunks.put(chunk);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing to validator");
+            }
+        }
+    }
+
+    /**
+     * Reader half of the pipe, used by the validator thread.
+     */
+    private static final class ChunkReader extends Reader {
+
+        private final BlockingQueue<char[]> chunks;
+        private char[] current = new char[0];
+        private int pos;
+        private boolean eof;
+
+        ChunkReader(BlockingQueue<char[]> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int n) throws IOException {
+            if (n == 0) {
+                return 0;
+            }
+            while (pos == current.length) {
+                if (eof) {
+                    return -1;
+                }
+                try {
+                    current = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while validating");
+                }
+                pos = 0;
+                if (current == END) {
+                    eof = true;
+                }
+            }
+            int step = Math.min(n, current.length - pos);
+            System.arraycopy(current, pos, cbuf, off, step);
+            pos += step;
+            return step;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.bpmnplus.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the elements of one tag name in a document in linear time.
+ * Equivalent to matching {@code <tag attrs>(.*?)</tag>} with DOTALL, where
+ * each element ends at the first closing tag after it, but start and closing
+ * tags are located in one pass each and paired up afterwards. The lazy regex
+ * instead rescans the rest of the input from every start tag that has no
+ * closing tag, which is quadratic on unclosed or malformed input.
+ * Self-closing start tags are reported as empty elements rather than being
+ * paired with a later element's closing tag.
+ */
+final class TagScanner {
+
+    private static final Map<String, Pattern[]> PATTERNS = new ConcurrentHashMap<>();
+
+    private TagScanner() {
+    }
+
+    /**
+     * One element. {@code body} is empty for self-closing elements; for an
+     * unclosed start tag {@code closed} is false and {@code body} is null.
+     */
+    static final class Tag {
+
+        final int start;
+        final int end;
+        final String attrs;
+        final String body;
+        final boolean selfClosing;
+
+        private Tag(int start, int end, String attrs, String body, boolean selfClosing) {
+            this.start = start;
+            this.end = end;
+            this.attrs = attrs;
+            this.body = body;
+            this.selfClosing = selfClosing;
+        }
+
+        boolean isClosed() {
+            return body != null;
+        }
+    }
+
+    /**
+     * Elements named {@code tag} (with any namespace prefix) in document
+     * order. Start tags inside the body of an earlier element are skipped,
+     * as a repeated regex find would.
+     */
+    static List<Tag> scan(CharSequence text, String tag) {
+        return scan(text, tag, true);
+    }
+
+    /**
+     * Elements of a tag that never nests (e.g. {@code BPMNShape}): a body also
+     * ends at the next start tag of the same name, so an element missing its
+     * closing tag cannot swallow the ones after it.
+     */
+    static List<Tag> scanFlat(CharSequence text, String tag) {
+        return scan(text, tag, false);
+    }
+
+    private static List<Tag> scan(CharSequence text, String tag, boolean nests) {
+        Pattern[] patterns = PATTERNS.computeIfAbsent(tag, t -> new Pattern[] {
+                // Attributes cannot contain '<', so an unterminated start tag stops at the next tag
+                Pattern.compile("<(?:\\w+:)?" + t + "\\b([^<>]*)>"),
+                Pattern.compile("</(?:\\w+:)?" + t + ">") });
+
+        List<int[]> closes = new ArrayList<>();
+        Matcher close = patterns[1].matcher(text);
+        while (close.find()) {
+            closes.add(new int[] { close.start(), close.end() });
+        }
+
+        List<int[]> opens = new ArrayList<>();
+        List<String> attrList = new ArrayList<>();
+        Matcher open = patterns[0].matcher(text);
+        while (open.find()) {
+            opens.add(new int[] { open.start(), open.end() });
+            attrList.add(open.group(1));
+        }
+
+        List<Tag> tags = new ArrayList<>();
+        int consumed = 0;
+        int next = 0;
+        for (int i = 0; i < opens.size(); i++) {
+            int start = opens.get(i)[0];
+            int end = opens.get(i)[1];
+            if (start < consumed) {
+                continue;
+            }
+            String attrs = attrList.get(i);
+            if (attrs.trim().endsWith("/")) {
+                tags.add(new Tag(start, end, attrs.substring(0, attrs.lastIndexOf('/')), "", true));
+                consumed = end;
+                continue;
+            }
+            while (next < closes.size() && closes.get(next)[0] < end) {
+                next++;
+            }
+            int nextOpen = !nests && i + 1 < opens.size() ? opens.get(i + 1)[0] : Integer.MAX_VALUE;
+            if (next < closes.size() && closes.get(next)[0] < nextOpen) {
+                int[] match = closes.get(next);
+                tags.add(new Tag(start, match[1], attrs, text.subSequence(end, match[0]).toString(), false));
+                consumed = match[1];
+            } else if (!nests) {
+                int bodyEnd = Math.min(nextOpen, text.length());
+                tags.add(new Tag(start, bodyEnd, attrs, text.subSequence(end, bodyEnd).toString(), false));
+                consumed = bodyEnd;
+            } else {
+                tags.add(new Tag(start, end, attrs, null, false));
+            }
+        }
+        return tags;
+    }
+}
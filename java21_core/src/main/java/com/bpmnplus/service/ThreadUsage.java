@@ -0,0 +1,49 @@
+package com.bpmnplus.service;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * CPU time and heap allocation of the current thread, via the HotSpot
+ * {@link ThreadMXBean}. Both read -1 when the JVM does not support or has
+ * disabled the measurement.
+ */
+final class ThreadUsage {
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final boolean CPU = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    private static final boolean ALLOCATION = THREADS.isThreadAllocatedMemorySupported()
+            && THREADS.isThreadAllocatedMemoryEnabled();
+
+    private ThreadUsage() {
+    }
+
+    static long cpuNanos() {
+        return CPU ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    static long allocatedBytes() {
+        return ALLOCATION ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Run {@code work} and, if it runs on a thread other than {@code owner}
+     * (e.g. a fork-join worker parsing one pool), charge its CPU time and
+     * allocation to {@code trace}. Work done on the owner thread is already
+     * covered by the owner's own measurement.
+     */
+    static <T> T charge(ConversionTrace trace, Thread owner, Supplier<T> work) {
+        if (Thread.currentThread() == owner) {
+            return work.get();
+        }
+        long cpu0 = cpuNanos();
+        long alloc0 = allocatedBytes();
+        try {
+            return work.get();
+        } finally {
+            trace.addWorkerUsage(cpuNanos() - cpu0, allocatedBytes() - alloc0);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.bpmnplus.service;
+
+/**
+ * Generated diagrams for the startup warm-up ({@link ConversionWarmup}).
+ */
+final class WarmupCorpus {
+
+    private WarmupCorpus() {
+    }
+
+    /**
+     * {@code processes} processes (pools) side by side, each with
+     * {@code elements} flow nodes chained by sequence flows: a start event,
+     * user and service tasks with an exclusive gateway every tenth node
+     * (whose outgoing flow carries a condition), and an end event. Every node
+     * has a shape, laid out on a grid. More than one process takes the
+     * parser's per-process parallel path.
+     */
+    static String diagram(int elements, int processes) {
+        int n = Math.max(2, elements);
+        StringBuilder sb = header(n * 400 * processes);
+        for (int p = 0; p < processes; p++) {
+            String prefix = processes == 1 ? "" : "p" + p + "_";
+            sb.append("<bpmn:process id=\"Process_").append(p + 1).append("\" name=\"Synthetic\">\n");
+            for (int i = 0; i < n; i++) {
+                String tag = i == 0 ? "startEvent" : i == n - 1 ? "endEvent" : i % 10 == 5 ? "exclusiveGateway"
+                        : i % 2 == 0 ? "userTask" : "serviceTask";
+                sb.append("<bpmn:").append(tag).append(" id=\"").append(prefix).append('n').append(i)
+                        .append("\" name=\"Node ").append(i).append("\">");
+                if (i > 0) {
+                    sb.append("<bpmn:incoming>").append(prefix).append('f').append(i - 1).append("</bpmn:incoming>");
+                }
+                if (i < n - 1) {
+                    sb.append("<bpmn:outgoing>").append(prefix).append('f').append(i).append("</bpmn:outgoing>");
+                }
+                sb.append("</bpmn:").append(tag).append(">\n");
+            }
+            for (int i = 0; i < n - 1; i++) {
+                sb.append("<bpmn:sequenceFlow id=\"").append(prefix).append('f').append(i).append("\" sourceRef=\"")
+                        .append(prefix).append('n').append(i).append("\" targetRef=\"").append(prefix).append('n')
+                        .append(i + 1).append("\"");
+                if (i % 10 == 5) {
+                    sb.append("><bpmn:conditionExpression>amount &gt; ").append(i)
+                            .append("</bpmn:conditionExpression></bpmn:sequenceFlow>\n");
+                } else {
+                    sb.append("/>\n");
+                }
+            }
+            sb.append("</bpmn:process>\n");
+        }
+        sb.append("<bpmndi:BPMNDiagram id=\"Diagram_1\"><bpmndi:BPMNPlane id=\"Plane_1\" bpmnElement=\"Process_1\">\n");
+        for (int p = 0; p < processes; p++) {
+            String prefix = processes == 1 ? "" : "p" + p + "_";
+            int top = p * ((n + 49) / 50) * 120;
+            for (int i = 0; i < n; i++) {
+                sb.append("<bpmndi:BPMNShape id=\"").append(prefix).append('n').append(i).append("_s\" bpmnElement=\"")
+                        .append(prefix).append('n').append(i).append("\"><dc:Bounds x=\"").append(100 + (i % 50) * 150)
+                        .append("\" y=\"").append(100 + top + (i / 50) * 120)
+                        .append("\" width=\"100\" height=\"80\"/></bpmndi:BPMNShape>\n");
+            }
+        }
+        return footer(sb, true);
+    }
+
+    private static StringBuilder header(int capacity) {
+        StringBuilder sb = new StringBuilder(capacity + 512);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" ")
+                .append("xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\" ")
+                .append("xmlns:dc=\"http://www.omg.org/spec/DD/20100524/DC\" id=\"Definitions_1\">\n");
+        return sb;
+    }
+
+    private static String footer(StringBuilder sb, boolean diagram) {
+        if (diagram) {
+            sb.append("</bpmndi:BPMNPlane></bpmndi:BPMNDiagram>\n");
+        }
+        sb.append("</bpmn:definitions>\n");
+        return sb.toString();
+    }
+}
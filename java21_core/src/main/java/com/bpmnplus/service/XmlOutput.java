@@ -0,0 +1,64 @@
+package com.bpmnplus.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Line-oriented sink for the generated XML. Lines are joined with '\n' into
+ * an in-memory buffer and, when a tee writer is attached (e.g. the schema
+ * validator's pipe), forwarded to it as they are produced.
+ */
+class XmlOutput {
+
+    private final StringBuilder buffer = new StringBuilder(8192);
+    private final Writer tee;
+    private boolean first = true;
+
+    XmlOutput(Writer tee) {
+        this.tee = tee;
+    }
+
+    void add(String line) {
+        if (!first) {
+            buffer.append('\n');
+        }
+        buffer.append(line);
+        if (tee != null) {
+            try {
+                if (!first) {
+                    tee.write('\n');
+                }
+                tee.write(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        first = false;
+    }
+
+    /**
+     * Close the tee writer, signalling end of document to its reader.
+     */
+    void finish() {
+        if (tee != null) {
+            try {
+                tee.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Characters written so far.
+     */
+    int length() {
+        return buffer.length();
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.bpmnplus.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Platform threads for conversions that asked for {@code profile=true}.
+ * Requests run on virtual threads here, and on a virtual thread the JVM
+ * reports neither CPU time nor allocated bytes, so profiled conversions
+ * are handed to this pool, one thread per admitted conversion.
+ */
+@Configuration
+public class ProfilingConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService profilingExecutor() {
+        return Executors.newFixedThreadPool(ResourceSizing.current().maxConcurrent(),
+                Thread.ofPlatform().name("convert-profiled-", 0).daemon(true).factory());
+    }
+}
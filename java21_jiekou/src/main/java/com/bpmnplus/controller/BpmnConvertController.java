@@ -1,44 +1,124 @@
 package com.bpmnplus.controller;
 
+import com.bpmnplus.config.AdmissionProperties;
+import com.bpmnplus.config.BatchProperties;
+import com.bpmnplus.config.ResourceSizing;
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import com.bpmnplus.model.ConversionProfile;
 import com.bpmnplus.model.ConvertResult;
+import com.bpmnplus.model.OutputFormat;
 import com.bpmnplus.service.BpmnConvertService;
+import com.bpmnplus.service.ConversionAdmission;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class BpmnConvertController {
 
+    private static final String BUSY = "服务繁忙，请稍后重试";
+
     private final BpmnConvertService bpmnConvertService;
+    private final BatchProperties batchProperties;
+    private final ExecutorService profilingExecutor;
+    private final ConversionAdmission admission;
+    private final AdmissionProperties admissionProperties;
 
     @Autowired
-    public BpmnConvertController(BpmnConvertService bpmnConvertService) {
+    public BpmnConvertController(BpmnConvertService bpmnConvertService, BatchProperties batchProperties,
+            @Qualifier("profilingExecutor") ExecutorService profilingExecutor, ConversionAdmission admission,
+            AdmissionProperties admissionProperties) {
         this.bpmnConvertService = bpmnConvertService;
+        this.batchProperties = batchProperties;
+        this.profilingExecutor = profilingExecutor;
+        this.admission = admission;
+        this.admissionProperties = admissionProperties;
     }
 
     /**
      * 单文件转换接口
      * 接收上传的 BPMN 文件，返回转换后的 BPMN XML 内容及状态。
+     * 请求字节数已由 AdmissionFilter 预留；上传读完后、转换期间才占用一个并发名额，
+     * 服务饱和时返回 429 与 Retry-After。
      *
-     * @param file BPMN 文件 (multipart/form-data)
-     * @return ConvertResult 对象包含文件名和内容
+     * @param file     BPMN 文件 (multipart/form-data)
+     * @param validate 为 true 时按 BPMN 2.0 XSD 校验转换结果，报告放在 validation 字段
+     * @param profile  为 true 时在 profile 字段返回各阶段耗时、CPU 时间与堆分配字节数
+     *                 （虚拟线程上无法测量，此时转换改在平台线程池中执行）
+     * @param format   xml（默认）返回 ConvertResult；json / cbor 直接以响应体返回流程图结构
+     *                 （元素、连线、条件、坐标），不生成 XML
+     * @return ConvertResult 对象包含文件名和内容，或 JSON / CBOR 格式的流程图
      */
     @PostMapping("/convert")
-    public ResponseEntity<ConvertResult> convertFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> convertFile(@RequestParam("file") MultipartFile file,
+            @RequestParam(value = "validate", defaultValue = "false") boolean validate,
+            @RequestParam(value = "profile", defaultValue = "false") boolean profile,
+            @RequestParam(value = "format", defaultValue = "xml") String format) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body(new ConvertResult(null, "上传的文件为空", false));
         }
+        OutputFormat outputFormat = outputFormat(format);
+        if (outputFormat == null) {
+            return ResponseEntity.badRequest().body(new ConvertResult(null, "不支持的输出格式: " + format, false));
+        }
 
-        try {
+        ConversionAdmission.Permit slot = admissionProperties.isEnabled() ? acquireSlot() : null;
+        if (slot == null && admissionProperties.isEnabled()) {
+            return tooBusy(new ConvertResult(file.getOriginalFilename(), BUSY, false));
+        }
+        try (slot) {
             String originalFileName = file.getOriginalFilename();
-            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
 
-            // 执行核心转换逻辑
-            String convertedContent = bpmnConvertService.performConversion(content, originalFileName);
+            // 执行核心转换逻辑（直接从上传流解码，不再整体读入 byte[]）
+            ConversionOptions options = options(validate, outputFormat);
+            Callable<ConversionOutcome> conversion = () -> {
+                try (InputStream in = file.getInputStream()) {
+                    return bpmnConvertService.convert(in, file.getSize(), originalFileName, options);
+                }
+            };
+            ConversionOutcome outcome;
+            if (profile) {
+                try {
+                    outcome = profilingExecutor.submit(conversion).get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            } else {
+                outcome = conversion.call();
+            }
+            if (outcome.getGraph() != null) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(outputFormat.getMediaType()))
+                        .header("Content-Disposition", ContentDisposition.inline()
+                                .filename(graphFileName(originalFileName, outputFormat), StandardCharsets.UTF_8)
+                                .build().toString())
+                        .body(outcome.getGraph());
+            }
+            String convertedContent = outcome.getXml();
 
             if (convertedContent == null || convertedContent.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(
@@ -47,7 +127,12 @@ public class BpmnConvertController {
 
             // 生成新文件名
             String newFileName = "converted_" + (originalFileName != null ? originalFileName : "process.bpmn");
-            return ResponseEntity.ok(new ConvertResult(newFileName, convertedContent, true));
+            ConvertResult result = new ConvertResult(newFileName, convertedContent, true);
+            result.setValidation(outcome.getValidation());
+            if (profile) {
+                result.setProfile(new ConversionProfile(outcome));
+            }
+            return ResponseEntity.ok(result);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -55,4 +140,215 @@ public class BpmnConvertController {
                     new ConvertResult(null, "系统内部错误: " + e.getMessage(), false));
         }
     }
+
+    /**
+     * 多文件批量转换接口
+     * 每个文件在独立的虚拟线程上并发转换，同时转换的文件数不超过转换线程数（每 CPU 一个），
+     * 其余文件排队等待；单个文件失败或超时不影响其他文件。
+     * 单文件超时 bpmn.batch.file-timeout 从该文件开始转换时起算，整批超时
+     * bpmn.batch.batch-timeout 从请求开始起算，两者先到者为准；超时的转换
+     * 在下一个阶段边界或连线处自行停止，不再占用 CPU。结果顺序与上传顺序一致。
+     * 整批只占用一个并发名额（上传读完后申请，转换完成后归还），与文件数无关。
+     *
+     * @param files    BPMN 文件列表 (multipart/form-data)
+     * @param validate 为 true 时按 BPMN 2.0 XSD 校验每个转换结果
+     * @param profile  为 true 时每个结果附带 profile（阶段耗时、CPU 时间、堆分配），
+     *                 文件改在平台线程池中转换
+     * @param format   xml（默认）或 json；json 时流程图以 JSON 对象放在每项的 graph 字段中。
+     *                 cbor 为二进制，只有单文件接口支持
+     * @return results 数组，每项为一个 ConvertResult
+     */
+    @PostMapping("/convert/batch")
+    public ResponseEntity<Map<String, Object>> convertBatch(@RequestParam("files") MultipartFile[] files,
+            @RequestParam(value = "validate", defaultValue = "false") boolean validate,
+            @RequestParam(value = "profile", defaultValue = "false") boolean profile,
+            @RequestParam(value = "format", defaultValue = "xml") String format) {
+        OutputFormat outputFormat = outputFormat(format);
+        if (outputFormat == null || outputFormat == OutputFormat.CBOR) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", "不支持的输出格式: " + format);
+            return ResponseEntity.badRequest().body(error);
+        }
+        ConversionAdmission.Permit slot = admissionProperties.isEnabled() ? acquireSlot() : null;
+        if (slot == null && admissionProperties.isEnabled()) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", BUSY);
+            return tooBusy(error);
+        }
+        try (slot) {
+            return ResponseEntity.ok(convertAll(files, validate, profile, outputFormat));
+        }
+    }
+
+    private Map<String, Object> convertAll(MultipartFile[] files, boolean validate, boolean profile,
+            OutputFormat outputFormat) {
+        long batchDeadline = System.nanoTime() + batchProperties.getBatchTimeout().toNanos();
+        long fileTimeout = batchProperties.getFileTimeout().toNanos();
+
+        // 不使用 try-with-resources：close() 会等待超时任务跑到下一个取消检查点
+        // profile=true 时用共享的平台线程池（只能在平台线程上测量 CPU 时间与堆分配），不关闭它
+        ExecutorService executor = profile ? profilingExecutor : Executors.newVirtualThreadPerTaskExecutor();
+        // 每个文件开始转换的时刻（0 表示尚未开始），单文件超时从这里起算
+        AtomicLongArray started = new AtomicLongArray(files.length);
+        // 转换是 CPU 密集型的，并发数超过 CPU 数只会增加上下文切换和同时驻留的解析结果
+        Semaphore parallelism = new Semaphore(Math.max(1,
+                Math.min(files.length, ResourceSizing.current().conversionThreads())));
+        List<ConvertResult> results = new ArrayList<>(files.length);
+        try {
+            List<Future<ConversionOutcome>> futures = new ArrayList<>(files.length);
+            for (int i = 0; i < files.length; i++) {
+                MultipartFile file = files[i];
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    // 排队最多等到整批截止时间，之后不再启动
+                    if (!parallelism.tryAcquire(Math.max(0, batchDeadline - System.nanoTime()),
+                            TimeUnit.NANOSECONDS)) {
+                        throw new TimeoutException();
+                    }
+                    try {
+                        long begun = System.nanoTime();
+                        started.set(index, begun);
+                        // 超时后由转换自身在下一个阶段边界或连线处停止（正则匹配不响应中断）
+                        ConversionOptions fileOptions = options(validate, outputFormat);
+                        fileOptions.setDeadlineNanos(fileDeadline(begun, fileTimeout, batchDeadline));
+                        try (InputStream in = file.getInputStream()) {
+                            return bpmnConvertService.convert(in, file.getSize(), file.getOriginalFilename(),
+                                    fileOptions);
+                        }
+                    } finally {
+                        parallelism.release();
+                    }
+                }));
+            }
+
+            for (int i = 0; i < files.length; i++) {
+                String originalFileName = files[i].getOriginalFilename();
+                Future<ConversionOutcome> future = futures.get(i);
+                try {
+                    ConversionOutcome outcome = await(future, started, i, fileTimeout, batchDeadline);
+                    String convertedContent = outcome.getXml();
+                    if (!outcome.isSuccess() && timedOut(started, i, fileTimeout, batchDeadline)) {
+                        results.add(new ConvertResult(originalFileName, "转换超时", false));
+                    } else if (outcome.getGraph() != null) {
+                        ConvertResult result = new ConvertResult(graphFileName(originalFileName, outputFormat),
+                                null, true);
+                        result.setGraph(new String(outcome.getGraph(), StandardCharsets.UTF_8));
+                        if (profile) {
+                            result.setProfile(new ConversionProfile(outcome));
+                        }
+                        results.add(result);
+                    } else if (convertedContent == null || convertedContent.trim().isEmpty()) {
+                        results.add(new ConvertResult(originalFileName, "转换失败：无法从文件中解析出有效的流程", false));
+                    } else {
+                        String newFileName = "converted_" + (originalFileName != null ? originalFileName : "process.bpmn");
+                        ConvertResult result = new ConvertResult(newFileName, convertedContent, true);
+                        result.setValidation(outcome.getValidation());
+                        if (profile) {
+                            result.setProfile(new ConversionProfile(outcome));
+                        }
+                        results.add(result);
+                    }
+                } catch (TimeoutException e) {
+                    // 已开始的转换会在截止时间后自行停止；尚未开始的不再启动
+                    future.cancel(false);
+                    results.add(new ConvertResult(originalFileName, "转换超时", false));
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof TimeoutException) {
+                        results.add(new ConvertResult(originalFileName, "转换超时", false));
+                        continue;
+                    }
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    results.add(new ConvertResult(originalFileName, "系统内部错误: " + cause.getMessage(), false));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.cancel(false);
+                    results.add(new ConvertResult(originalFileName, "请求被中断", false));
+                }
+            }
+        } finally {
+            if (executor != profilingExecutor) {
+                executor.shutdown();
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("results", results);
+        return response;
+    }
+
+    private ConversionAdmission.Permit acquireSlot() {
+        try {
+            return admission.tryAcquireSlot();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private <T> ResponseEntity<T> tooBusy(T body) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    /**
+     * 等待第 index 个文件的结果，直到它自己的截止时间。尚未开始的文件截止时间不早于
+     * 现在起算的 file-timeout，先等到那时再按实际开始时间重新计算。
+     */
+    private static ConversionOutcome await(Future<ConversionOutcome> future, AtomicLongArray started, int index,
+            long fileTimeout, long batchDeadline) throws ExecutionException, InterruptedException, TimeoutException {
+        while (true) {
+            long now = System.nanoTime();
+            long begun = started.get(index);
+            long deadline = fileDeadline(begun != 0 ? begun : now, fileTimeout, batchDeadline);
+            try {
+                return future.get(Math.max(0, deadline - now), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (begun != 0 || deadline == batchDeadline) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 单文件截止时间：从该文件开始转换起算 file-timeout，且不晚于整批截止时间。
+     */
+    private static long fileDeadline(long begun, long fileTimeout, long batchDeadline) {
+        long deadline = begun + fileTimeout;
+        return deadline - batchDeadline < 0 ? deadline : batchDeadline;
+    }
+
+    /**
+     * 第 index 个文件是否已过截止时间（转换因此被取消时，结果按超时而非解析失败报告）。
+     */
+    private static boolean timedOut(AtomicLongArray started, int index, long fileTimeout, long batchDeadline) {
+        long begun = started.get(index);
+        long deadline = begun != 0 ? fileDeadline(begun, fileTimeout, batchDeadline) : batchDeadline;
+        return System.nanoTime() - deadline >= 0;
+    }
+
+    private static ConversionOptions options(boolean validate, OutputFormat format) {
+        ConversionOptions options = new ConversionOptions();
+        options.setValidate(validate);
+        options.setFormat(format);
+        return options;
+    }
+
+    /**
+     * 解析 format 参数（不区分大小写）；无法识别时返回 null。
+     */
+    private static OutputFormat outputFormat(String format) {
+        try {
+            return OutputFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String graphFileName(String originalFileName, OutputFormat format) {
+        String baseName = originalFileName != null ? originalFileName : "process.bpmn";
+        int dotIdx = baseName.lastIndexOf('.');
+        return "converted_" + (dotIdx > 0 ? baseName.substring(0, dotIdx) : baseName) + format.getExtension();
+    }
 }
@@ -0,0 +1,186 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.config.AdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for conversions: bounds concurrent conversions and the
+ * total request bytes held in memory, with a short bounded wait queue in
+ * front. The two budgets can be taken separately: web requests reserve their
+ * bytes before the body is read ({@link #tryReserve}) and take a concurrency
+ * slot only while converting ({@link #tryAcquireSlot}), so slow uploads do
+ * not hold slots. Publishes {@code bpmn.admission.*} gauges so load balancers and
+ * dashboards can see saturation before the heap does.
+ */
+@Service
+public class ConversionAdmission {
+
+    private final AdmissionProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Counter rejected;
+
+    private int active;
+    private int queued;
+    private long inFlightBytes;
+
+    public ConversionAdmission(AdmissionProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.rejected = Counter.builder("bpmn.admission.rejected")
+                .description("Conversion requests rejected with 429")
+                .register(registry);
+        Gauge.builder("bpmn.admission.queued", this, ConversionAdmission::getQueued)
+                .description("Conversion requests waiting for admission")
+                .register(registry);
+        Gauge.builder("bpmn.admission.active", this, ConversionAdmission::getActive)
+                .description("Conversions currently holding a concurrency slot")
+                .register(registry);
+        Gauge.builder("bpmn.admission.inflight.bytes", this, ConversionAdmission::getInFlightBytes)
+                .description("Request bytes of admitted conversions")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Try to admit a conversion of {@code bytes} of input, taking both a
+     * concurrency slot and the bytes.
+     * Returns a permit that must be closed when the conversion completes, or
+     * null when the service is saturated and the caller should answer 429.
+     * A single request larger than the whole byte budget is admitted only
+     * when nothing else is in flight.
+     */
+    public Permit tryAcquire(long bytes) throws InterruptedException {
+        return admit(Math.max(0, bytes), true);
+    }
+
+    /**
+     * Try to reserve {@code bytes} of the in-flight byte budget for a request
+     * whose body is still to be read, without taking a concurrency slot.
+     * Returns null when saturated, like {@link #tryAcquire}.
+     */
+    public Permit tryReserve(long bytes) throws InterruptedException {
+        return admit(Math.max(0, bytes), false);
+    }
+
+    /**
+     * Try to take a concurrency slot for a conversion whose input is already
+     * held (and reserved with {@link #tryReserve}).
+     * Returns null when saturated, like {@link #tryAcquire}.
+     */
+    public Permit tryAcquireSlot() throws InterruptedException {
+        return admit(0, true);
+    }
+
+    private Permit admit(long size, boolean slot) throws InterruptedException {
+        lock.lock();
+        try {
+            if (!fits(size, slot)) {
+                if (queued >= properties.getMaxQueued()) {
+                    rejected.increment();
+                    return null;
+                }
+                queued++;
+                try {
+                    long remaining = properties.getMaxQueueWait().toNanos();
+                    while (!fits(size, slot)) {
+                        if (remaining <= 0) {
+                            rejected.increment();
+                            return null;
+                        }
+                        remaining = released.awaitNanos(remaining);
+                    }
+                } finally {
+                    queued--;
+                }
+            }
+            if (slot) {
+                active++;
+            }
+            inFlightBytes += size;
+            return new Permit(size, slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(properties.getRetryAfter().toMillis()));
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActive() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getInFlightBytes() {
+        lock.lock();
+        try {
+            return inFlightBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(long size, boolean slot) {
+        if (slot && active >= properties.getMaxConcurrent()) {
+            return false;
+        }
+        return size == 0 || inFlightBytes == 0 || inFlightBytes + size <= properties.getMaxInFlightBytes();
+    }
+
+    private void release(long size, boolean slot) {
+        lock.lock();
+        try {
+            if (slot) {
+                active--;
+            }
+            inFlightBytes -= size;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * An admitted request; closing it returns its slot and bytes to the budget.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long bytes;
+        private final boolean slot;
+        private boolean closed;
+
+        private Permit(long bytes, boolean slot) {
+            this.bytes = bytes;
+            this.slot = slot;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(bytes, slot);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Slow-client load test for /api/convert: N concurrent uploads, each throttled
+# to RATE, against a running service. Run it once against the servlet variant
+# (java21_jiekou, port 9999) and once against this one (port 9998) on the same
+# machine, with admission control off so the I/O model is what is measured:
+#
+#   java -jar target/bpmn-plus-reactive-1.0.0.jar --bpmn.admission.enabled=false
+#   ./load-test.sh http://localhost:9998 sample.bpmn 2000 20k
+#
+# Prints status counts, wall time, latency percentiles and the server's peak
+# live thread count (from /actuator/metrics) while the test ran.
+
+set -euo pipefail
+
+BASE=${1:?usage: load-test.sh BASE_URL FILE [CLIENTS] [RATE]}
+FILE=${2:?usage: load-test.sh BASE_URL FILE [CLIENTS] [RATE]}
+CLIENTS=${3:-1000}
+RATE=${4:-20k}
+
+ulimit -n "$(( CLIENTS * 2 + 256 ))" 2>/dev/null || true
+out=$(mktemp)
+sampler=
+trap 'rm -f "$out"; kill "$sampler" 2>/dev/null || true' EXIT
+
+threads() {
+    curl -s "$BASE/actuator/metrics/jvm.threads.live" | sed -n 's/.*"value":\([0-9.]*\).*/\1/p'; echo
+}
+
+peak=$(threads)
+( while sleep 0.5; do threads; done ) > "$out.threads" &
+sampler=$!
+
+start=$(date +%s.%N)
+seq "$CLIENTS" | xargs -P "$CLIENTS" -I{} curl -s -o /dev/null --limit-rate "$RATE" \
+    -w '%{http_code} %{time_total}\n' -F "file=@$FILE" "$BASE/api/convert" >> "$out"
+end=$(date +%s.%N)
+
+kill "$sampler" 2>/dev/null || true
+peak=$(sort -n "$out.threads" <(echo "$peak") | tail -1)
+rm -f "$out.threads"
+
+echo "clients=$CLIENTS rate=$RATE file=$FILE ($(wc -c < "$FILE") bytes)"
+echo "status:"; cut -d' ' -f1 "$out" | sort | uniq -c
+awk -v s="$start" -v e="$end" 'BEGIN { printf "wall %.2f s\n", e - s }'
+cut -d' ' -f2 "$out" | sort -n | awk '{ t[NR] = $1 } END {
+    printf "latency p50 %.3f s, p90 %.3f s, p99 %.3f s, max %.3f s\n",
+        t[int(NR * 0.50) + (NR * 0.50 > int(NR * 0.50))], t[int(NR * 0.90) + (NR * 0.90 > int(NR * 0.90))],
+        t[int(NR * 0.99) + (NR * 0.99 > int(NR * 0.99))], t[NR] }'
+echo "peak live threads $peak"
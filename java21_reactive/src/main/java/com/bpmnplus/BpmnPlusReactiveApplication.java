@@ -0,0 +1,14 @@
+package com.bpmnplus;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+@SpringBootApplication
+@ConfigurationPropertiesScan
+public class BpmnPlusReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(BpmnPlusReactiveApplication.class, args);
+    }
+}
@@ -0,0 +1,67 @@
+package com.bpmnplus.actuator;
+
+import com.bpmnplus.config.AdmissionProperties;
+import com.bpmnplus.config.BatchProperties;
+import com.bpmnplus.config.ResourceSizing;
+import com.bpmnplus.config.SchedulerProperties;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@code /actuator/sizing}: the CPUs and memory detected at startup and, for
+ * each resource-derived setting, the effective value next to the derived
+ * default, so an override in {@code application.yml} is visible as such.
+ */
+@Component
+@WebEndpoint(id = "sizing")
+public class SizingEndpoint {
+
+    private final AdmissionProperties admission;
+    private final BatchProperties batch;
+    private final SchedulerProperties scheduler;
+
+    public SizingEndpoint(AdmissionProperties admission, BatchProperties batch, SchedulerProperties scheduler) {
+        this.admission = admission;
+        this.batch = batch;
+        this.scheduler = scheduler;
+    }
+
+    @ReadOperation
+    public Map<String, Object> sizing() {
+        ResourceSizing sizing = ResourceSizing.current();
+        Map<String, Object> resources = new LinkedHashMap<>();
+        resources.put("cpus", sizing.getCpus());
+        resources.put("maxHeapBytes", sizing.getMaxHeapBytes());
+        resources.put("memoryLimitBytes", sizing.getMemoryLimitBytes());
+        resources.put("parserParallelism", ForkJoinPool.getCommonPoolParallelism());
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        put(settings, "bpmn.admission.max-concurrent", admission.getMaxConcurrent(), sizing.maxConcurrent());
+        put(settings, "bpmn.admission.max-in-flight-bytes", admission.getMaxInFlightBytes(),
+                sizing.maxInFlightBytes());
+        put(settings, "bpmn.admission.max-queued", admission.getMaxQueued(), sizing.maxQueued());
+        put(settings, "bpmn.scheduler.conversion-threads", scheduler.getConversionThreads(),
+                sizing.conversionThreads());
+        put(settings, "bpmn.batch.file-timeout", batch.getFileTimeout(), sizing.fileTimeout());
+        put(settings, "bpmn.batch.batch-timeout", batch.getBatchTimeout(), sizing.batchTimeout());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("resources", resources);
+        result.put("settings", settings);
+        return result;
+    }
+
+    private static void put(Map<String, Object> settings, String name, Object value, Object derived) {
+        Map<String, Object> setting = new LinkedHashMap<>();
+        setting.put("value", value instanceof Duration d ? d.toString() : value);
+        setting.put("derived", derived instanceof Duration d ? d.toString() : derived);
+        setting.put("overridden", !value.equals(derived));
+        settings.put(name, setting);
+    }
+}
@@ -0,0 +1,25 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Size of the scheduler conversions run on ({@code bpmn.scheduler.*}).
+ * Netty's event-loop threads only read request bodies and write responses;
+ * every conversion is handed to this bounded pool, so a slow or large upload
+ * never stalls the event loop and the number of conversions competing for the
+ * CPUs stays fixed however many connections are open. Derived from the CPUs
+ * available ({@link ResourceSizing}) unless set.
+ */
+@ConfigurationProperties(prefix = "bpmn.scheduler")
+public class SchedulerProperties {
+
+    private int conversionThreads = ResourceSizing.current().conversionThreads();
+
+    public int getConversionThreads() {
+        return conversionThreads;
+    }
+
+    public void setConversionThreads(int conversionThreads) {
+        this.conversionThreads = conversionThreads;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bpmnplus.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Conversion scheduler for the conversion endpoints. Admission
+ * ({@link com.bpmnplus.service.ConversionAdmission}) is applied by the
+ * controller around each conversion, once the upload has been read.
+ */
+@Configuration
+public class WebConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler conversionScheduler(SchedulerProperties properties) {
+        return Schedulers.newParallel("convert", properties.getConversionThreads());
+    }
+}
@@ -0,0 +1,291 @@
+package com.bpmnplus.controller;
+
+import com.bpmnplus.config.BatchProperties;
+import com.bpmnplus.config.SchedulerProperties;
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import com.bpmnplus.model.ConversionProfile;
+import com.bpmnplus.model.ConvertResult;
+import com.bpmnplus.model.OutputFormat;
+import com.bpmnplus.service.BpmnConvertService;
+import com.bpmnplus.service.ConversionAdmission;
+import com.bpmnplus.web.Utf8Content;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.FormFieldPart;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class BpmnConvertController {
+
+    private static final Logger log = LoggerFactory.getLogger(BpmnConvertController.class);
+
+    private static final String EMPTY_RESULT = "转换失败：无法从文件中解析出有效的流程";
+
+    private final BpmnConvertService bpmnConvertService;
+    private final ConversionAdmission admission;
+    private final BatchProperties batchProperties;
+    private final SchedulerProperties schedulerProperties;
+    private final Scheduler conversionScheduler;
+
+    @Autowired
+    public BpmnConvertController(BpmnConvertService bpmnConvertService, ConversionAdmission admission,
+            BatchProperties batchProperties, SchedulerProperties schedulerProperties,
+            @Qualifier("conversionScheduler") Scheduler conversionScheduler) {
+        this.bpmnConvertService = bpmnConvertService;
+        this.admission = admission;
+        this.batchProperties = batchProperties;
+        this.schedulerProperties = schedulerProperties;
+        this.conversionScheduler = conversionScheduler;
+    }
+
+    /**
+     * 单文件转换接口（响应式）
+     * 上传内容在 Netty 事件循环上边到达边解码，转换本身在有界的 conversionScheduler 上执行，
+     * 请求与响应格式与 Servlet 版本一致。转换前按内容大小申请准入（ConversionAdmission，非阻塞），
+     * 服务饱和时返回 429 与 Retry-After。
+     *
+     * @param file     BPMN 文件 (multipart/form-data)
+     * @param validate 为 true 时按 BPMN 2.0 XSD 校验转换结果（查询参数或表单字段）
+     * @param profile  为 true 时在 profile 字段返回各阶段耗时、CPU 时间与堆分配字节数
+     * @param format   xml（默认）返回 ConvertResult；json / cbor 直接以响应体返回流程图结构
+     *                 （元素、连线、条件、坐标），不生成 XML
+     * @return ConvertResult 对象包含文件名和内容，或 JSON / CBOR 格式的流程图
+     */
+    @PostMapping("/convert")
+    public Mono<ResponseEntity<?>> convertFile(ServerWebExchange exchange,
+            @RequestParam(value = "validate", defaultValue = "false") boolean validate,
+            @RequestParam(value = "profile", defaultValue = "false") boolean profile,
+            @RequestParam(value = "format", defaultValue = "xml") String format) {
+        return exchange.getMultipartData().flatMap(parts -> {
+            FilePart file = fileParts(parts, "file").get(0);
+            boolean withProfile = flag(parts, "profile", profile);
+            String formatName = field(parts, "format", format);
+            OutputFormat outputFormat = outputFormat(formatName);
+            String originalFileName = file.filename();
+            return Utf8Content.read(file.content())
+                    .<ResponseEntity<?>>flatMap(content -> {
+                        if (content.length() == 0) {
+                            return Mono.just(ResponseEntity.badRequest()
+                                    .body(new ConvertResult(null, "上传的文件为空", false)));
+                        }
+                        if (outputFormat == null) {
+                            return Mono.just(ResponseEntity.badRequest()
+                                    .body(new ConvertResult(null, "不支持的输出格式: " + formatName, false)));
+                        }
+                        ConversionOptions options = options(flag(parts, "validate", validate), outputFormat);
+                        return convert(content, originalFileName, options)
+                                .map(outcome -> {
+                                    if (outcome.getGraph() != null) {
+                                        return ResponseEntity.ok()
+                                                .contentType(MediaType.parseMediaType(outputFormat.getMediaType()))
+                                                .header("Content-Disposition", ContentDisposition.inline()
+                                                        .filename(graphFileName(originalFileName, outputFormat),
+                                                                StandardCharsets.UTF_8)
+                                                        .build().toString())
+                                                .body(outcome.getGraph());
+                                    }
+                                    ConvertResult result = result(originalFileName, outcome, withProfile,
+                                            outputFormat);
+                                    return result.isSuccess() ? ResponseEntity.ok(result)
+                                            : ResponseEntity.badRequest().body(result);
+                                });
+                    })
+                    .onErrorResume(ConversionAdmission.RejectedException.class, e -> {
+                        log.warn("Rejected {}: conversion capacity saturated", originalFileName);
+                        Map<String, Object> error = new LinkedHashMap<>();
+                        error.put("error", e.getMessage());
+                        return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()))
+                                .body(error));
+                    })
+                    .onErrorResume(e -> !(e instanceof ServerWebInputException), e -> {
+                        log.error("✗ {}: {}", originalFileName, e.getMessage(), e);
+                        return Mono.just(ResponseEntity.internalServerError().body(
+                                new ConvertResult(null, "系统内部错误: " + e.getMessage(), false)));
+                    });
+        });
+    }
+
+    /**
+     * 多文件批量转换接口（响应式）
+     * 各文件并发转换（同时进行的文件数不超过转换线程数），单个文件失败或超时不影响其他文件。
+     * 每个文件的 bpmn.batch.file-timeout 从它被订阅（开始读取与转换）时计时，
+     * bpmn.batch.batch-timeout 从请求到达时计时，以先到者为准；超时的文件取消订阅，
+     * 正在执行的转换在下一个取消检查点停止。每个文件单独申请准入，服务饱和时该文件返回失败。
+     * 结果顺序与上传顺序一致。
+     *
+     * @param files    BPMN 文件列表 (multipart/form-data)
+     * @param validate 为 true 时按 BPMN 2.0 XSD 校验每个转换结果
+     * @param profile  为 true 时每个结果附带 profile（阶段耗时、CPU 时间、堆分配）
+     * @param format   xml（默认）或 json；json 时流程图以 JSON 对象放在每项的 graph 字段中。
+     *                 cbor 为二进制，只有单文件接口支持
+     * @return results 数组，每项为一个 ConvertResult
+     */
+    @PostMapping("/convert/batch")
+    public Mono<ResponseEntity<Map<String, Object>>> convertBatch(ServerWebExchange exchange,
+            @RequestParam(value = "validate", defaultValue = "false") boolean validate,
+            @RequestParam(value = "profile", defaultValue = "false") boolean profile,
+            @RequestParam(value = "format", defaultValue = "xml") String format) {
+        return exchange.getMultipartData().flatMap(parts -> {
+            List<FilePart> files = fileParts(parts, "files");
+            String formatName = field(parts, "format", format);
+            OutputFormat outputFormat = outputFormat(formatName);
+            if (outputFormat == null || outputFormat == OutputFormat.CBOR) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("error", "不支持的输出格式: " + formatName);
+                return Mono.just(ResponseEntity.badRequest().body(error));
+            }
+            boolean withValidation = flag(parts, "validate", validate);
+            boolean withProfile = flag(parts, "profile", profile);
+            long fileTimeout = batchProperties.getFileTimeout().toNanos();
+            long batchDeadline = System.nanoTime() + batchProperties.getBatchTimeout().toNanos();
+            int concurrency = Math.max(1, Math.min(files.size(), schedulerProperties.getConversionThreads()));
+
+            return Flux.fromIterable(files)
+                    .flatMapSequential(file -> Mono.defer(() -> {
+                        String originalFileName = file.filename();
+                        long deadline = fileDeadline(System.nanoTime(), fileTimeout, batchDeadline);
+                        // 转换线程通过 ConversionTrace 检查截止时间，超时后自行停止
+                        ConversionOptions options = options(withValidation, outputFormat);
+                        options.setDeadlineNanos(deadline);
+                        return Utf8Content.read(file.content())
+                                .flatMap(content -> convert(content, originalFileName, options))
+                                .map(outcome -> timedOut(outcome, deadline)
+                                        ? new ConvertResult(originalFileName, "转换超时", false)
+                                        : result(originalFileName, outcome, withProfile, outputFormat))
+                                .timeout(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))
+                                .onErrorResume(TimeoutException.class,
+                                        e -> Mono.just(new ConvertResult(originalFileName, "转换超时", false)))
+                                .onErrorResume(ConversionAdmission.RejectedException.class,
+                                        e -> Mono.just(new ConvertResult(originalFileName, "服务繁忙，请稍后重试", false)))
+                                .onErrorResume(e -> Mono.just(new ConvertResult(originalFileName,
+                                        "系统内部错误: " + e.getMessage(), false)));
+                    }), concurrency)
+                    .collectList()
+                    .map(results -> {
+                        Map<String, Object> response = new LinkedHashMap<>();
+                        response.put("results", results);
+                        return ResponseEntity.ok(response);
+                    });
+        });
+    }
+
+    private Mono<ConversionOutcome> convert(CharSequence content, String filename, ConversionOptions options) {
+        return admission.run(content.length(), conversionScheduler,
+                () -> bpmnConvertService.convert(content, filename, options));
+    }
+
+    /**
+     * 单文件截止时间：从该文件被订阅起算 file-timeout，且不晚于整批截止时间。
+     */
+    private static long fileDeadline(long begun, long fileTimeout, long batchDeadline) {
+        long deadline = begun + fileTimeout;
+        return deadline - batchDeadline < 0 ? deadline : batchDeadline;
+    }
+
+    /**
+     * 转换是否因超过截止时间被取消（此时结果按超时而非解析失败报告）。
+     */
+    private static boolean timedOut(ConversionOutcome outcome, long deadline) {
+        return outcome.getXml() == null && outcome.getGraph() == null && System.nanoTime() - deadline >= 0;
+    }
+
+    private static ConvertResult result(String originalFileName, ConversionOutcome outcome, boolean profile,
+            OutputFormat format) {
+        if (outcome.getGraph() != null) {
+            ConvertResult result = new ConvertResult(graphFileName(originalFileName, format), null, true);
+            result.setGraph(new String(outcome.getGraph(), StandardCharsets.UTF_8));
+            if (profile) {
+                result.setProfile(new ConversionProfile(outcome));
+            }
+            return result;
+        }
+        String convertedContent = outcome.getXml();
+        if (convertedContent == null || convertedContent.trim().isEmpty()) {
+            return new ConvertResult(originalFileName, EMPTY_RESULT, false);
+        }
+        // 生成新文件名
+        String newFileName = "converted_" + (originalFileName != null ? originalFileName : "process.bpmn");
+        ConvertResult result = new ConvertResult(newFileName, convertedContent, true);
+        result.setValidation(outcome.getValidation());
+        if (profile) {
+            result.setProfile(new ConversionProfile(outcome));
+        }
+        return result;
+    }
+
+    /**
+     * 取出名为 name 的文件分片；缺失时与 Servlet 版本一样返回 400。
+     */
+    private static List<FilePart> fileParts(MultiValueMap<String, Part> parts, String name) {
+        List<FilePart> files = parts.getOrDefault(name, List.of()).stream()
+                .filter(FilePart.class::isInstance)
+                .map(FilePart.class::cast)
+                .toList();
+        if (files.isEmpty()) {
+            throw new ServerWebInputException("Required part '" + name + "' is not present.");
+        }
+        return files;
+    }
+
+    /**
+     * WebFlux 的 @RequestParam 只绑定查询参数；Servlet 版本也接受同名表单字段，这里补上。
+     */
+    private static boolean flag(MultiValueMap<String, Part> parts, String name, boolean queryValue) {
+        return Boolean.parseBoolean(field(parts, name, String.valueOf(queryValue)).trim());
+    }
+
+    private static String field(MultiValueMap<String, Part> parts, String name, String queryValue) {
+        Part part = parts.getFirst(name);
+        return part instanceof FormFieldPart field ? field.value() : queryValue;
+    }
+
+    private static ConversionOptions options(boolean validate, OutputFormat format) {
+        ConversionOptions options = new ConversionOptions();
+        options.setValidate(validate);
+        options.setFormat(format);
+        return options;
+    }
+
+    /**
+     * 解析 format 参数（不区分大小写）；无法识别时返回 null。
+     */
+    private static OutputFormat outputFormat(String format) {
+        try {
+            return OutputFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String graphFileName(String originalFileName, OutputFormat format) {
+        String baseName = originalFileName != null ? originalFileName : "process.bpmn";
+        int dotIdx = baseName.lastIndexOf('.');
+        return "converted_" + (dotIdx > 0 ? baseName.substring(0, dotIdx) : baseName) + format.getExtension();
+    }
+}
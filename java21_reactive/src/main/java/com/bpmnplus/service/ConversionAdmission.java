@@ -0,0 +1,221 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.config.AdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for conversions: bounds concurrent conversions and the
+ * total input bytes held in memory, with a short bounded wait queue in front.
+ * Nothing blocks: a request that does not fit waits as a {@link Mono} that a
+ * released permit completes, in arrival order, or that gives up after
+ * {@code max-queue-wait}. Publishes {@code bpmn.admission.*} gauges so load
+ * balancers and dashboards can see saturation before the heap does. With
+ * {@code bpmn.admission.enabled=false} permits are still counted but never
+ * refused.
+ */
+@Service
+public class ConversionAdmission {
+
+    private final AdmissionProperties properties;
+    private final Counter rejected;
+    // Guarded by this
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private int active;
+    private long inFlightBytes;
+
+    public ConversionAdmission(AdmissionProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.rejected = Counter.builder("bpmn.admission.rejected")
+                .description("Conversion requests rejected with 429")
+                .register(registry);
+        Gauge.builder("bpmn.admission.queued", this, ConversionAdmission::getQueued)
+                .description("Conversion requests waiting for admission")
+                .register(registry);
+        Gauge.builder("bpmn.admission.active", this, ConversionAdmission::getActive)
+                .description("Conversion requests currently admitted")
+                .register(registry);
+        Gauge.builder("bpmn.admission.inflight.bytes", this, ConversionAdmission::getInFlightBytes)
+                .description("Input bytes of admitted conversions")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Run {@code task} on {@code scheduler} once a conversion of {@code bytes}
+     * of input is admitted, holding the permit until the task returns. Fails
+     * with {@link RejectedException} when the service stays saturated. A task
+     * cancelled before it started returns its permit at once; one already
+     * running keeps it until it returns.
+     */
+    public <T> Mono<T> run(long bytes, Scheduler scheduler, Callable<T> task) {
+        return acquire(bytes)
+                .switchIfEmpty(Mono.error(RejectedException::new))
+                .flatMap(permit -> {
+                    AtomicBoolean claimed = new AtomicBoolean();
+                    return Mono.fromCallable(() -> {
+                        if (!claimed.compareAndSet(false, true)) {
+                            return null;
+                        }
+                        try (permit) {
+                            return task.call();
+                        }
+                    }).subscribeOn(scheduler).doOnCancel(() -> {
+                        if (claimed.compareAndSet(false, true)) {
+                            permit.close();
+                        }
+                    });
+                });
+    }
+
+    /**
+     * A permit for a request carrying {@code bytes} of input, once admitted;
+     * empty when the service is saturated and the caller should answer 429.
+     * The permit must be closed when the request completes. A single request
+     * larger than the whole byte budget is admitted only when nothing else is
+     * in flight.
+     */
+    public Mono<Permit> acquire(long bytes) {
+        return Mono.defer(() -> {
+            long size = Math.max(0, bytes);
+            Waiter waiter;
+            synchronized (this) {
+                if (waiters.isEmpty() && fits(size)) {
+                    return Mono.just(admit(size));
+                }
+                if (waiters.size() >= properties.getMaxQueued()) {
+                    rejected.increment();
+                    return Mono.empty();
+                }
+                waiter = new Waiter(size);
+                waiters.addLast(waiter);
+            }
+            return waiter.sink.asMono()
+                    .timeout(properties.getMaxQueueWait(), Mono.defer(() -> giveUp(waiter, true)))
+                    .doOnCancel(() -> giveUp(waiter, false).subscribe(Permit::close));
+        });
+    }
+
+    public long getRetryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(properties.getRetryAfter().toMillis()));
+    }
+
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    public synchronized int getActive() {
+        return active;
+    }
+
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    private boolean fits(long size) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        if (active >= properties.getMaxConcurrent()) {
+            return false;
+        }
+        return active == 0 || inFlightBytes + size <= properties.getMaxInFlightBytes();
+    }
+
+    private Permit admit(long size) {
+        active++;
+        inFlightBytes += size;
+        return new Permit(size);
+    }
+
+    /**
+     * Withdraw a waiter that timed out or was cancelled. If a permit was
+     * granted to it in the meantime, that permit is returned to the caller.
+     */
+    private Mono<Permit> giveUp(Waiter waiter, boolean timedOut) {
+        synchronized (this) {
+            if (waiters.remove(waiter)) {
+                if (timedOut) {
+                    rejected.increment();
+                }
+                return Mono.empty();
+            }
+        }
+        return Mono.justOrEmpty(waiter.permit);
+    }
+
+    private void release(long size) {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            active--;
+            inFlightBytes -= size;
+            // In arrival order: a large request at the head is not overtaken by smaller ones
+            while (!waiters.isEmpty() && fits(waiters.peekFirst().size)) {
+                Waiter waiter = waiters.removeFirst();
+                waiter.permit = admit(waiter.size);
+                admitted.add(waiter);
+            }
+        }
+        for (Waiter waiter : admitted) {
+            waiter.sink.tryEmitValue(waiter.permit);
+        }
+    }
+
+    /**
+     * A request waiting for admission.
+     */
+    private static final class Waiter {
+
+        private final long size;
+        private final Sinks.One<Permit> sink = Sinks.one();
+        private volatile Permit permit;
+
+        private Waiter(long size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * An admitted request; closing it returns its slot and bytes to the budget.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long bytes;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(bytes);
+            }
+        }
+    }
+
+    /**
+     * The service stayed saturated for {@code max-queue-wait}, or its wait
+     * queue was full; the caller answers 429 with {@code Retry-After}.
+     */
+    public static class RejectedException extends RuntimeException {
+
+        public RejectedException() {
+            super("Too many conversions in progress, retry later");
+        }
+    }
+}
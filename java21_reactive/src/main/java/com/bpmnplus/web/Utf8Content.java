@@ -0,0 +1,89 @@
+package com.bpmnplus.web;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes a request body or multipart file part as UTF-8 while its buffers
+ * arrive, releasing each buffer as soon as it is decoded, so only the decoded
+ * characters are held and the raw bytes are never collected into one array.
+ * Malformed input is replaced like {@link java.io.InputStreamReader} does,
+ * matching the servlet endpoints.
+ */
+public final class Utf8Content {
+
+    private static final int CHUNK = 8192;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(CHUNK);
+    private final StringBuilder content = new StringBuilder(CHUNK);
+    // Trailing bytes of a character split across two buffers
+    private ByteBuffer pending;
+
+    private Utf8Content() {
+    }
+
+    /**
+     * The decoded content of {@code buffers}; empty input yields an empty sequence.
+     */
+    public static Mono<CharSequence> read(Flux<DataBuffer> buffers) {
+        return buffers.collect(Utf8Content::new, Utf8Content::append)
+                .map(Utf8Content::finish)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private void append(DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator it = buffer.readableByteBuffers()) {
+            while (it.hasNext()) {
+                decode(it.next(), false);
+            }
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private CharSequence finish() {
+        decode(ByteBuffer.allocate(0), true);
+        for (;;) {
+            boolean done = decoder.flush(chars).isUnderflow();
+            drain();
+            if (done) {
+                return content;
+            }
+        }
+    }
+
+    private void decode(ByteBuffer bytes, boolean endOfInput) {
+        ByteBuffer in = bytes;
+        if (pending != null) {
+            in = ByteBuffer.allocate(pending.remaining() + bytes.remaining()).put(pending).put(bytes).flip();
+            pending = null;
+        }
+        for (;;) {
+            boolean underflow = decoder.decode(in, chars, endOfInput).isUnderflow();
+            drain();
+            if (underflow) {
+                break;
+            }
+        }
+        if (in.hasRemaining()) {
+            pending = ByteBuffer.allocate(in.remaining()).put(in).flip();
+        }
+    }
+
+    private void drain() {
+        chars.flip();
+        content.append(chars);
+        chars.clear();
+    }
+}
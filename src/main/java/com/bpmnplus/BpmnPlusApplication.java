@@ -1,12 +1,24 @@
 package com.bpmnplus;
 
+import com.bpmnplus.cli.PipeMode;
+import org.springframework.boot.Banner;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class BpmnPlusApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(BpmnPlusApplication.class, args);
+        SpringApplication application = new SpringApplication(BpmnPlusApplication.class);
+        if (PipeMode.isRequested(args)) {
+            // stdout carries the converted documents; no web server, banner or logs on it
+            PipeMode.reserveStdout();
+            application.setWebApplicationType(WebApplicationType.NONE);
+            application.setBannerMode(Banner.Mode.OFF);
+        }
+        application.run(args);
     }
 }
@@ -0,0 +1,148 @@
+package com.bpmnplus.actuator;
+
+import com.bpmnplus.config.JfrProperties;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * On-demand Flight Recorder recordings of the {@code com.bpmnplus.*}
+ * conversion events plus the configured JDK settings.
+ * {@code POST /actuator/jfr} with a JSON body such as
+ * {@code {"duration": "30s"}} starts a recording and returns at once; the JVM
+ * stops it after the duration and writes it to a temporary file.
+ * {@code GET /actuator/jfr} shows its state, and once it has finished
+ * {@code GET /actuator/jfr/download} streams the {@code .jfr} file; any other
+ * path below {@code /actuator/jfr} is 404. {@code DELETE} stops and discards
+ * it. One recording at a time; starting
+ * another while one is running gets 409. Not exposed by default.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecordingEndpoint {
+
+    /** The one sub-resource below the endpoint. */
+    private static final String DOWNLOAD = "download";
+
+    private final JfrProperties properties;
+    private Recording recording;
+    private Path file;
+    private Instant startedAt;
+
+    public FlightRecordingEndpoint(JfrProperties properties) {
+        this.properties = properties;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable String duration)
+            throws IOException, ParseException {
+        Duration length = duration != null ? DurationStyle.detectAndParse(duration) : properties.getDefaultDuration();
+        if (length.isNegative() || length.isZero() || length.compareTo(properties.getMaxDuration()) > 0) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(describe(), 409);
+        }
+        discard();
+        Path target = Files.createTempFile("bpmn-", ".jfr");
+        Recording r = new Recording(Configuration.getConfiguration(properties.getSettings()));
+        r.setName("bpmn-on-demand");
+        r.enable("com.bpmnplus.Conversion");
+        r.enable("com.bpmnplus.ConversionPhase");
+        r.setDuration(length);
+        r.setDestination(target);
+        r.start();
+        recording = r;
+        file = target;
+        startedAt = Instant.now();
+        return new WebEndpointResponse<>(describe(), 202);
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        return describe();
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> resource(@Selector String name) {
+        if (!DOWNLOAD.equals(name)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return download();
+    }
+
+    private synchronized WebEndpointResponse<Resource> download() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (!finished()) {
+            return new WebEndpointResponse<>(409);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(file));
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        discard();
+    }
+
+    @DeleteOperation
+    public synchronized void discard() throws IOException {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        if (file != null) {
+            Files.deleteIfExists(file);
+            file = null;
+        }
+        startedAt = null;
+    }
+
+    private Map<String, Object> describe() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        if (recording == null) {
+            m.put("state", "none");
+            return m;
+        }
+        m.put("state", finished() ? "finished" : recording.getState().name().toLowerCase(Locale.ROOT));
+        m.put("startedAt", startedAt.toString());
+        m.put("duration", recording.getDuration().toString());
+        m.put("endsAt", startedAt.plus(recording.getDuration()).toString());
+        if (finished()) {
+            m.put("bytes", file.toFile().length());
+        }
+        return m;
+    }
+
+    /**
+     * A recording with a destination is written and closed by the JVM when
+     * its duration is up.
+     */
+    private boolean finished() {
+        RecordingState state = recording.getState();
+        return state == RecordingState.STOPPED || state == RecordingState.CLOSED;
+    }
+}
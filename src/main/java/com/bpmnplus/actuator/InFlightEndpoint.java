@@ -0,0 +1,43 @@
+package com.bpmnplus.actuator;
+
+import com.bpmnplus.service.BpmnConvertService;
+import com.bpmnplus.service.InFlightConversions;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/inflight}: the conversions running right now with their
+ * file, input size, current phase, elapsed time and thread, longest-running
+ * first. {@code DELETE /actuator/inflight/{id}} asks one to stop at its next
+ * phase boundary; it then fails like any other conversion.
+ * Anyone who can reach it can cancel other users' conversions, so it is not
+ * in the default exposure list; expose it on a separate
+ * {@code management.server.port}.
+ */
+@Component
+@WebEndpoint(id = "inflight")
+public class InFlightEndpoint {
+
+    private final InFlightConversions inFlight;
+
+    public InFlightEndpoint(BpmnConvertService convertService) {
+        this.inFlight = convertService.getInFlight();
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> list() {
+        return inFlight.snapshot().stream().map(InFlightConversions.Entry::describe).toList();
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> cancel(@Selector long id) {
+        return new WebEndpointResponse<>(inFlight.cancel(id) ? 202 : WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+}
@@ -0,0 +1,75 @@
+package com.bpmnplus.actuator;
+
+import com.bpmnplus.config.AdmissionProperties;
+import com.bpmnplus.config.LaneProperties;
+import com.bpmnplus.config.ResourceSizing;
+import com.bpmnplus.config.ResultStoreProperties;
+import com.bpmnplus.config.ShadowProperties;
+import com.bpmnplus.config.SlowCaptureProperties;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@code /actuator/sizing}: the CPUs and memory detected at startup and, for
+ * each resource-derived setting, the effective value next to the derived
+ * default, so an override in {@code application.yml} is visible as such.
+ */
+@Component
+@WebEndpoint(id = "sizing")
+public class SizingEndpoint {
+
+    private final LaneProperties lanes;
+    private final AdmissionProperties admission;
+    private final SlowCaptureProperties slowCapture;
+    private final ShadowProperties shadow;
+    private final ResultStoreProperties results;
+
+    public SizingEndpoint(LaneProperties lanes, AdmissionProperties admission, SlowCaptureProperties slowCapture,
+            ShadowProperties shadow, ResultStoreProperties results) {
+        this.lanes = lanes;
+        this.admission = admission;
+        this.slowCapture = slowCapture;
+        this.shadow = shadow;
+        this.results = results;
+    }
+
+    @ReadOperation
+    public Map<String, Object> sizing() {
+        ResourceSizing sizing = ResourceSizing.current();
+        Map<String, Object> resources = new LinkedHashMap<>();
+        resources.put("cpus", sizing.getCpus());
+        resources.put("maxHeapBytes", sizing.getMaxHeapBytes());
+        resources.put("memoryLimitBytes", sizing.getMemoryLimitBytes());
+        resources.put("parserParallelism", ForkJoinPool.getCommonPoolParallelism());
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        put(settings, "bpmn.lanes.fast-concurrency", lanes.getFastConcurrency(), sizing.fastConcurrency());
+        put(settings, "bpmn.lanes.bulk-concurrency", lanes.getBulkConcurrency(), sizing.bulkConcurrency());
+        put(settings, "bpmn.admission.max-concurrent", admission.getMaxConcurrent(), sizing.maxConcurrent());
+        put(settings, "bpmn.admission.max-in-flight-bytes", admission.getMaxInFlightBytes(),
+                sizing.maxInFlightBytes());
+        put(settings, "bpmn.admission.max-queued", admission.getMaxQueued(), sizing.maxQueued());
+        put(settings, "bpmn.slow-capture.capacity", slowCapture.getCapacity(), sizing.slowCaptureCapacity());
+        put(settings, "bpmn.slow-capture.max-bytes", slowCapture.getMaxBytes(), sizing.slowCaptureBytes());
+        put(settings, "bpmn.shadow.max-pending-bytes", shadow.getMaxPendingBytes(), sizing.shadowPendingBytes());
+        put(settings, "bpmn.results.max-memory-bytes", results.getMaxMemoryBytes(), sizing.resultMemoryBytes());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("resources", resources);
+        result.put("settings", settings);
+        return result;
+    }
+
+    private static void put(Map<String, Object> settings, String name, long value, long derived) {
+        Map<String, Object> setting = new LinkedHashMap<>();
+        setting.put("value", value);
+        setting.put("derived", derived);
+        setting.put("overridden", value != derived);
+        settings.put(name, setting);
+    }
+}
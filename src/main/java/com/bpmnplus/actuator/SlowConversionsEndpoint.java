@@ -0,0 +1,57 @@
+package com.bpmnplus.actuator;
+
+import com.bpmnplus.service.SlowConversionRecorder;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/slowconversions}: lists the captured slow conversions,
+ * {@code /actuator/slowconversions/export} downloads them as a ZIP for
+ * {@code --replay=}, and DELETE clears the capture.
+ * The export holds raw customer uploads, so the endpoint exists only when
+ * capture is enabled and is not in the default exposure list; expose it on a
+ * separate {@code management.server.port} that is not reachable by clients.
+ */
+@Component
+@WebEndpoint(id = "slowconversions")
+@ConditionalOnProperty(prefix = "bpmn.slow-capture", name = "enabled", havingValue = "true")
+public class SlowConversionsEndpoint {
+
+    private final SlowConversionRecorder recorder;
+
+    public SlowConversionsEndpoint(SlowConversionRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> list() {
+        return recorder.snapshot().stream().map(SlowConversionRecorder.Capture::describe).toList();
+    }
+
+    @ReadOperation(produces = "application/zip")
+    public WebEndpointResponse<Resource> export(@Selector String action) throws IOException {
+        if (!"export".equals(action)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.export(out);
+        return new WebEndpointResponse<>(new ByteArrayResource(out.toByteArray()));
+    }
+
+    @DeleteOperation
+    public void clear() {
+        recorder.clear();
+    }
+}
@@ -0,0 +1,184 @@
+package com.bpmnplus.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams converted documents into one ZIP instead of one file per input
+ * ({@code --output-archive=}). The converting thread hands results over a
+ * bounded queue to a writer thread, so reading and converting the next input
+ * overlaps with compressing and writing the previous one, and the archive is
+ * written sequentially in large blocks. A {@code manifest.json} with status,
+ * sizes and timings per input is added as the last entry.
+ */
+final class ArchiveWriter implements AutoCloseable {
+
+    static final String MANIFEST = "manifest.json";
+
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final Result END = new Result(null, null, null, 0, 0, 0, null);
+
+    private final Path archive;
+    private final BlockingQueue<Result> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private final List<Map<String, Object>> manifest = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private volatile IOException failure;
+    private volatile long writeNanos;
+    private boolean closed;
+
+    ArchiveWriter(Path archive) throws IOException {
+        this.archive = archive;
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(archive), BUFFER_SIZE);
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // Keep compression cheap so the writer does not compete with conversion for CPU
+        zip.setLevel(Deflater.BEST_SPEED);
+        this.writer = new Thread(() -> drain(zip), "archive-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * A converted document; {@code xml} is null when conversion failed, in
+     * which case {@code error} may say why.
+     */
+    record Result(String input, String name, String xml, long inputBytes, long readNanos, long convertNanos,
+            String error) {
+    }
+
+    /**
+     * Queue a result for the archive, waiting while the writer is behind.
+     */
+    void add(Result result) throws IOException {
+        checkFailure();
+        try {
+            queue.put(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing " + result.input(), e);
+        }
+    }
+
+    Path getArchive() {
+        return archive;
+    }
+
+    /**
+     * Time the writer thread spent compressing and writing, including the
+     * manifest once closed.
+     */
+    long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * Write the manifest and finish the archive once all queued results are in.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing " + archive, e);
+        }
+        checkFailure();
+    }
+
+    private void drain(ZipOutputStream zip) {
+        try (zip) {
+            for (Result result = queue.take(); result != END; result = queue.take()) {
+                if (failure == null) {
+                    write(zip, result);
+                }
+            }
+            if (failure == null) {
+                long start = System.nanoTime();
+                zip.putNextEntry(new ZipEntry(MANIFEST));
+                zip.write(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(manifest));
+                zip.closeEntry();
+                zip.finish();
+                zip.flush();
+                writeNanos += System.nanoTime() - start;
+            }
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(ZipOutputStream zip, Result result) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("input", result.input());
+        entry.put("inputBytes", result.inputBytes());
+        entry.put("readMillis", result.readNanos() / 1e6);
+        entry.put("convertMillis", result.convertNanos() / 1e6);
+        if (result.xml() == null) {
+            entry.put("status", result.error() != null ? "error" : "failed");
+            if (result.error() != null) {
+                entry.put("error", result.error());
+            }
+        } else {
+            String name = uniqueName(result.name());
+            long start = System.nanoTime();
+            byte[] bytes = result.xml().getBytes(StandardCharsets.UTF_8);
+            try {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(bytes);
+                zip.closeEntry();
+            } catch (IOException e) {
+                failure = e;
+                return;
+            }
+            long elapsed = System.nanoTime() - start;
+            writeNanos += elapsed;
+            entry.put("status", "ok");
+            entry.put("output", name);
+            entry.put("outputBytes", bytes.length);
+            entry.put("writeMillis", elapsed / 1e6);
+        }
+        manifest.add(entry);
+    }
+
+    /**
+     * Inputs with the same file name from different directories get
+     * {@code -2}, {@code -3}, ... before the extension.
+     */
+    private String uniqueName(String name) {
+        String candidate = name;
+        int dot = name.lastIndexOf('.');
+        for (int i = 2; !names.add(candidate); i++) {
+            candidate = dot > 0 ? name.substring(0, dot) + "-" + i + name.substring(dot) : name + "-" + i;
+        }
+        return candidate;
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) {
+            throw new IOException("Writing " + archive + " failed: " + e.getMessage(), e);
+        }
+    }
+}
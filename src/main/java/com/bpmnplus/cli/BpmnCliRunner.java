@@ -1,45 +1,115 @@
 package com.bpmnplus.cli;
 
+import com.bpmnplus.config.UploadProperties;
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
 import com.bpmnplus.service.BpmnConvertService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.CharBuffer;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Optional command-line runner.
  * If command-line args are provided (file paths or directories), processes them
  * and converts BPMN files, mirroring the Python __main__ block in
- * convert_bpmn.py.
+ * convert_bpmn.py. Inputs are memory-mapped and outputs written through a
+ * channel ({@link ChannelFileIO}); read, convert and write times are reported
+ * per file and in total, to tell I/O-bound runs from CPU-bound ones.
+ * {@code --output-archive=<file.zip>} writes all outputs plus a manifest into
+ * one archive instead of next to the inputs ({@link ArchiveWriter}).
+ * {@code --report=<file.json|file.csv>} writes per-file timings and counts with
+ * an aggregate latency histogram and throughput ({@link RunReport}).
+ * {@code --pipe[=single|nul|length]} converts documents from stdin to stdout
+ * ({@link PipeMode}), each at most {@code bpmn.upload.max-file-size} bytes.
+ * {@code --replay=<export.zip|dir>} (with optional {@code --replay-iterations=N})
+ * replays a slow-conversion export from {@code /actuator/slowconversions/export}.
  * When no args are given (normal Spring Boot start), this runner does nothing.
  */
 @Component
 public class BpmnCliRunner implements CommandLineRunner {
 
     private final BpmnConvertService convertService;
+    private final UploadProperties uploadProperties;
+    private final ChannelFileIO io = new ChannelFileIO();
+    private int converted;
+    private long readNanos;
+    private long convertNanos;
+    private long writeNanos;
+    private ArchiveWriter archive;
+    private RunReport report;
 
-    public BpmnCliRunner(BpmnConvertService convertService) {
+    public BpmnCliRunner(BpmnConvertService convertService, UploadProperties uploadProperties) {
         this.convertService = convertService;
+        this.uploadProperties = uploadProperties;
     }
 
     @Override
     public void run(String... args) throws Exception {
         // Only activate when explicit file/dir args are passed via --convert=
         // Example: java -jar bpmn-plus.jar --convert=file1.bpmn --convert=./bpmn_dir
+        int replayIterations = 5;
+        for (String arg : args) {
+            if (arg.startsWith("--replay-iterations=")) {
+                replayIterations = Integer.parseInt(arg.substring("--replay-iterations=".length()));
+            }
+            if (arg.startsWith("--output-archive=")) {
+                archive = new ArchiveWriter(Paths.get(arg.substring("--output-archive=".length())));
+            }
+            if (arg.startsWith("--report=")) {
+                report = new RunReport(Paths.get(arg.substring("--report=".length())));
+            }
+        }
+        try {
+            runCommands(args, replayIterations);
+        } finally {
+            if (archive != null) {
+                archive.close();
+            }
+        }
+    }
+
+    private void runCommands(String[] args, int replayIterations) throws Exception {
+        PipeMode.Framing framing;
+        try {
+            framing = PipeMode.requested(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        if (framing != null) {
+            int failed = new PipeMode(convertService, framing, uploadProperties.getMaxFileSize().toBytes()).run();
+            if (failed > 0 && framing == PipeMode.Framing.SINGLE) {
+                throw new IllegalStateException("Conversion of stdin failed");
+            }
+        }
         boolean hasConvertArgs = false;
         for (String arg : args) {
+            if (arg.startsWith("--replay=")) {
+                new ReplayHarness(convertService, replayIterations)
+                        .replay(Paths.get(arg.substring("--replay=".length())));
+            }
             if (arg.startsWith("--convert=")) {
                 hasConvertArgs = true;
                 String path = arg.substring("--convert=".length());
                 processPath(path);
             }
         }
-        if (hasConvertArgs) {
-            System.out.println("CLI conversion completed.");
+        if (hasConvertArgs && archive != null) {
+            archive.close();
+            System.out.printf("CLI conversion completed: %d file(s) in %s, read %.1f ms, convert %.1f ms, write %.1f ms%n",
+                    converted, archive.getArchive(), readNanos / 1e6, convertNanos / 1e6,
+                    archive.getWriteNanos() / 1e6);
+        } else if (hasConvertArgs) {
+            System.out.printf("CLI conversion completed: %d file(s), read %.1f ms, convert %.1f ms, write %.1f ms%n",
+                    converted, readNanos / 1e6, convertNanos / 1e6, writeNanos / 1e6);
+        }
+        if (hasConvertArgs && report != null) {
+            report.write(System.out);
         }
     }
 
@@ -59,18 +129,56 @@ public class BpmnCliRunner implements CommandLineRunner {
 
     private void convertFile(File inputFile) {
         try {
-            String content = Files.readString(inputFile.toPath(), StandardCharsets.UTF_8);
-            String xml = convertService.performConversion(content, inputFile.getName());
-            if (xml != null) {
-                String baseName = inputFile.getName();
-                int dotIdx = baseName.lastIndexOf('.');
-                String newName = (dotIdx > 0 ? baseName.substring(0, dotIdx) : baseName) + "_camunda.bpmn";
-                Path outPath = inputFile.toPath().getParent().resolve(newName);
-                Files.writeString(outPath, xml, StandardCharsets.UTF_8);
-                System.out.println("[OK] " + inputFile.getPath() + " -> " + outPath);
+            long start = System.nanoTime();
+            CharBuffer content = io.read(inputFile.toPath());
+            long read = System.nanoTime();
+            ConversionOutcome outcome = convertService.convert(content, inputFile.getName(), new ConversionOptions());
+            String xml = outcome.getXml();
+            long convert = System.nanoTime();
+            readNanos += read - start;
+            convertNanos += convert - read;
+            String baseName = inputFile.getName();
+            int dotIdx = baseName.lastIndexOf('.');
+            String newName = (dotIdx > 0 ? baseName.substring(0, dotIdx) : baseName) + "_camunda.bpmn";
+            if (archive != null) {
+                archive.add(new ArchiveWriter.Result(inputFile.getPath(), newName, xml, inputFile.length(),
+                        read - start, convert - read, null));
+                if (report != null) {
+                    report.add(inputFile.getPath(), inputFile.length(), outcome, read - start, convert - read, -1);
+                }
+                if (xml != null) {
+                    converted++;
+                    System.out.printf("[OK] %s -> %s (read %.1f ms, convert %.1f ms)%n", inputFile.getPath(),
+                            newName, (read - start) / 1e6, (convert - read) / 1e6);
+                }
+            } else if (xml != null) {
+                Path outPath = inputFile.toPath().toAbsolutePath().getParent().resolve(newName);
+                io.write(outPath, xml);
+                long write = System.nanoTime();
+                writeNanos += write - convert;
+                converted++;
+                System.out.printf("[OK] %s -> %s (read %.1f ms, convert %.1f ms, write %.1f ms)%n", inputFile.getPath(),
+                        outPath, (read - start) / 1e6, (convert - read) / 1e6, (write - convert) / 1e6);
+                if (report != null) {
+                    report.add(inputFile.getPath(), inputFile.length(), outcome, read - start, convert - read,
+                            write - convert);
+                }
+            } else if (report != null) {
+                report.add(inputFile.getPath(), inputFile.length(), outcome, read - start, convert - read, -1);
             }
         } catch (IOException e) {
             System.err.println("Error converting " + inputFile.getPath() + ": " + e.getMessage());
+            if (report != null) {
+                report.addError(inputFile.getPath(), inputFile.length(), e.getMessage());
+            }
+            if (archive != null) {
+                try {
+                    archive.add(new ArchiveWriter.Result(inputFile.getPath(), null, null, inputFile.length(), 0, 0,
+                            e.getMessage()));
+                } catch (IOException ignored) {
+                    // The archive itself failed; close() reports it
+                }
+            }
         }
     }
 }
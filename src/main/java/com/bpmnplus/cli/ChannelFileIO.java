@@ -0,0 +1,74 @@
+package com.bpmnplus.cli;
+
+import com.bpmnplus.service.MappedInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File I/O for bulk CLI runs without the intermediate byte arrays and strings
+ * of {@code Files.readString}/{@code writeString}: inputs are memory-mapped and
+ * decoded straight into the char buffer the parser reads, outputs are encoded
+ * through one reused direct buffer into a {@link FileChannel}.
+ * Not thread-safe; use one instance per thread.
+ */
+final class ChannelFileIO {
+
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private final CharsetDecoder decoder = MappedInput.utf8Decoder();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+    /**
+     * Decode a UTF-8 file ({@link MappedInput}). The result is a fresh buffer,
+     * since conversion listeners may keep the content after the conversion returns.
+     */
+    CharBuffer read(Path file) throws IOException {
+        return MappedInput.read(file, decoder);
+    }
+
+    /**
+     * Encode {@code content} as UTF-8 into {@code file}, replacing it.
+     */
+    void write(Path file, CharSequence content) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(content);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            encoder.reset();
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, writeBuffer, true);
+                check(result);
+                drain(channel);
+            } while (result.isOverflow());
+            do {
+                result = encoder.flush(writeBuffer);
+                drain(channel);
+            } while (result.isOverflow());
+        }
+    }
+
+    private void drain(FileChannel channel) throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private static void check(CoderResult result) throws CharacterCodingException {
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+}
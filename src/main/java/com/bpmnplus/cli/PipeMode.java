@@ -0,0 +1,245 @@
+package com.bpmnplus.cli;
+
+import com.bpmnplus.service.BpmnConvertService;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Converts documents read from stdin and writes the results to stdout, for
+ * use in shell pipelines ({@code --pipe[=single|nul|length]}):
+ * <ul>
+ * <li>{@code single} (default): stdin is one document, stdout its result;</li>
+ * <li>{@code nul}: documents are separated by NUL bytes, and so are results;</li>
+ * <li>{@code length}: every document and result is preceded by its length in
+ * bytes as a 4-byte big-endian integer.</li>
+ * </ul>
+ * A failed conversion yields an empty result frame, so results stay aligned
+ * with inputs. So does a document longer than {@code bpmn.upload.max-file-size}:
+ * its bytes are skipped rather than buffered, so a corrupt length header fails
+ * one frame instead of the process. The process stays up across documents and so keeps its
+ * JIT-compiled code; documents per second are reported on stderr at the end.
+ * Logging and other console output go to stderr while the mode is active
+ * (see {@link #reserveStdout()}).
+ */
+public final class PipeMode {
+
+    enum Framing {
+        SINGLE, NUL, LENGTH
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static PrintStream stdout = System.out;
+
+    private final BpmnConvertService convertService;
+    private final Framing framing;
+    private final int maxFrame;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    // Whether the last frame read was longer than maxFrame and so skipped
+    private boolean oversized;
+
+    PipeMode(BpmnConvertService convertService, Framing framing, long maxFrame) {
+        this.convertService = convertService;
+        this.framing = framing;
+        // Arrays cannot grow beyond this
+        this.maxFrame = (int) Math.min(maxFrame, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * The framing requested by a {@code --pipe} argument among {@code args},
+     * or null if there is none.
+     *
+     * @throws IllegalArgumentException naming the valid framings if the
+     *         requested one is unknown
+     */
+    static Framing requested(String... args) {
+        for (String arg : args) {
+            if (arg.equals("--pipe")) {
+                return Framing.SINGLE;
+            }
+            if (arg.startsWith("--pipe=")) {
+                String name = arg.substring("--pipe=".length());
+                try {
+                    return Framing.valueOf(name.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown --pipe framing '" + name
+                            + "', expected one of: single, nul, length");
+                }
+            }
+        }
+        return null;
+    }
+
+    public static boolean isRequested(String... args) {
+        for (String arg : args) {
+            if (arg.equals("--pipe") || arg.startsWith("--pipe=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keep the process's stdout for results and send everything else written
+     * to {@link System#out} (banner, logs, progress lines) to stderr. Must be
+     * called before logging is initialised.
+     */
+    public static void reserveStdout() {
+        stdout = new PrintStream(new FileOutputStream(FileDescriptor.out), false);
+        System.setOut(System.err);
+    }
+
+    /**
+     * Convert everything on stdin. Returns the number of failed documents.
+     */
+    int run() throws IOException {
+        return run(System.in, stdout, System.err);
+    }
+
+    int run(InputStream stdin, OutputStream stdoutStream, PrintStream report) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(stdin, BUFFER_SIZE);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stdoutStream, BUFFER_SIZE));
+        long start = System.nanoTime();
+        long bytesIn = 0;
+        int documents = 0;
+        int failed = 0;
+        for (int length = readFrame(in); length >= 0; length = readFrame(in)) {
+            documents++;
+            bytesIn += length;
+            byte[] result;
+            if (oversized) {
+                report.println("pipe: stdin-" + documents + " has " + length + " bytes, more than the "
+                        + maxFrame + " allowed; skipped");
+                result = new byte[0];
+            } else {
+                result = convert(length, "stdin-" + documents, report);
+            }
+            if (result.length == 0) {
+                failed++;
+            }
+            if (framing == Framing.LENGTH) {
+                out.writeInt(result.length);
+            }
+            out.write(result);
+            if (framing == Framing.NUL) {
+                out.write(0);
+            }
+            // Flush only when no more input is waiting, so bursts go out in large writes
+            if (framing == Framing.SINGLE || in.available() == 0) {
+                out.flush();
+            }
+            if (framing == Framing.SINGLE) {
+                break;
+            }
+        }
+        out.flush();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report.printf("pipe: %d document(s), %d failed, %.1f s, %.1f docs/s, %.2f MB/s in%n", documents, failed,
+                seconds, documents / seconds, bytesIn / 1e6 / seconds);
+        return failed;
+    }
+
+    /**
+     * Read the next document into {@link #buffer}; returns its length, or -1
+     * at the end of input. A document longer than {@link #maxFrame} is read
+     * past instead and flagged as {@link #oversized}.
+     */
+    private int readFrame(InputStream in) throws IOException {
+        oversized = false;
+        switch (framing) {
+            case LENGTH -> {
+                DataInputStream data = new DataInputStream(in);
+                int length;
+                try {
+                    length = data.readInt();
+                } catch (EOFException e) {
+                    return -1;
+                }
+                if (length < 0) {
+                    throw new IOException("Negative frame length " + length);
+                }
+                if (length > maxFrame) {
+                    oversized = true;
+                    data.skipNBytes(length);
+                    return length;
+                }
+                ensureCapacity(length);
+                data.readFully(buffer, 0, length);
+                return length;
+            }
+            case NUL -> {
+                long length = 0;
+                int b = in.read();
+                if (b < 0) {
+                    return -1;
+                }
+                while (b > 0) {
+                    if (length < maxFrame) {
+                        ensureCapacity((int) length + 1);
+                        buffer[(int) length] = (byte) b;
+                    }
+                    length++;
+                    b = in.read();
+                }
+                oversized = length > maxFrame;
+                return (int) Math.min(length, Integer.MAX_VALUE);
+            }
+            default -> {
+                int length = 0;
+                long total = 0;
+                for (int n; (n = in.read(buffer, length, buffer.length - length)) >= 0;) {
+                    length += n;
+                    total += n;
+                    if (length == buffer.length) {
+                        if (length > maxFrame) {
+                            // Only count the rest, reading it over the buffer
+                            oversized = true;
+                            length = 0;
+                        } else {
+                            ensureCapacity(length + 1);
+                        }
+                    }
+                }
+                oversized |= total > maxFrame;
+                return (int) Math.min(total, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    private byte[] convert(int length, String name, PrintStream report) {
+        // Decoded into a fresh buffer: conversion listeners may keep the content.
+        // Malformed bytes become U+FFFD, as for every other input (MappedInput)
+        CharSequence content = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(buffer, 0, length));
+        String xml = convertService.performConversion(content, name);
+        if (xml != null) {
+            return xml.getBytes(StandardCharsets.UTF_8);
+        }
+        report.println("pipe: conversion of " + name + " failed");
+        return new byte[0];
+    }
+
+    /**
+     * Grow {@link #buffer} to at least {@code capacity} bytes, but never past
+     * one byte more than {@link #maxFrame}, which is enough to tell that a
+     * document is too long.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            int limit = maxFrame + 1;
+            buffer = Arrays.copyOf(buffer, Math.min(Math.max(capacity, buffer.length * 2), limit));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.bpmnplus.cli;
+
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import com.bpmnplus.model.OutputFormat;
+import com.bpmnplus.service.BpmnConvertService;
+import com.bpmnplus.service.SlowConversionRecorder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Replays a slow-conversion export (the ZIP from
+ * {@code /actuator/slowconversions/export}, or the directory it was unpacked
+ * into) through the converter, printing per-file phase timings next to the
+ * ones recorded in production. Each capture is replayed with the options it
+ * was converted with: validation, output format and deadline budget.
+ */
+class ReplayHarness {
+
+    private final BpmnConvertService convertService;
+    private final int iterations;
+
+    ReplayHarness(BpmnConvertService convertService, int iterations) {
+        this.convertService = convertService;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    void replay(Path export) throws IOException {
+        Map<String, byte[]> files = new HashMap<>();
+        byte[] manifestBytes;
+        if (Files.isDirectory(export)) {
+            manifestBytes = Files.readAllBytes(export.resolve(SlowConversionRecorder.MANIFEST));
+        } else {
+            try (ZipFile zip = new ZipFile(export.toFile())) {
+                ZipEntry manifestEntry = zip.getEntry(SlowConversionRecorder.MANIFEST);
+                if (manifestEntry == null) {
+                    throw new IOException("No " + SlowConversionRecorder.MANIFEST + " in " + export);
+                }
+                manifestBytes = zip.getInputStream(manifestEntry).readAllBytes();
+                for (ZipEntry e : Collections.list(zip.entries())) {
+                    if (!e.isDirectory() && !e.getName().equals(SlowConversionRecorder.MANIFEST)) {
+                        files.put(e.getName(), zip.getInputStream(e).readAllBytes());
+                    }
+                }
+            }
+        }
+        List<Map<String, Object>> manifest = new ObjectMapper().readValue(manifestBytes,
+                new TypeReference<List<Map<String, Object>>>() {
+                });
+
+        System.out.println("Replaying " + manifest.size() + " capture(s), " + iterations + " iteration(s) each");
+        for (Map<String, Object> entry : manifest) {
+            String file = String.valueOf(entry.get("file"));
+            byte[] bytes = files.containsKey(file) ? files.get(file) : Files.readAllBytes(export.resolve(file));
+            String content = new String(bytes, StandardCharsets.UTF_8);
+            String filename = String.valueOf(entry.get("filename"));
+            Map<?, ?> recorded = entry.get("options") instanceof Map<?, ?> m ? m : Map.of();
+
+            double[] totals = new double[iterations];
+            ConversionOutcome last = null;
+            for (int i = 0; i < iterations; i++) {
+                last = convertService.convert(content, filename, options(recorded));
+                totals[i] = last.getTotalMillis();
+            }
+            Arrays.sort(totals);
+
+            System.out.printf("%s (%d bytes, %s): recorded %.1f ms, replay min %.1f / median %.1f / max %.1f ms%n",
+                    filename, bytes.length, recorded, ((Number) entry.get("totalMillis")).doubleValue(),
+                    totals[0], totals[iterations / 2], totals[iterations - 1]);
+            System.out.println("  recorded phases: " + entry.get("timings"));
+            System.out.println("  replay phases:   " + last.getTimings()
+                    + (last.isSuccess() ? "" : " (failed)"));
+        }
+    }
+
+    /**
+     * Fresh options for one replay run; a recorded deadline budget starts
+     * counting now.
+     */
+    private static ConversionOptions options(Map<?, ?> recorded) {
+        ConversionOptions options = new ConversionOptions();
+        options.setValidate(Boolean.TRUE.equals(recorded.get("validate")));
+        options.setFormat(OutputFormat.of((String) recorded.get("format")));
+        if (recorded.get("deadlineMillis") instanceof Number budget) {
+            options.setDeadlineNanos(System.nanoTime() + (long) (budget.doubleValue() * 1e6));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,165 @@
+package com.bpmnplus.cli;
+
+import com.bpmnplus.model.ConversionOutcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Per-file results of a CLI run and their aggregate ({@code --report=}): input
+ * size, element/flow/shape counts, phase timings and outcome for every input,
+ * plus conversion latency percentiles from an HDR histogram and the overall
+ * throughput. Written as CSV when the file name ends in {@code .csv} (the
+ * aggregate as trailing {@code #} comment lines), otherwise as JSON.
+ */
+final class RunReport {
+
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
+    private final Path target;
+    private final List<Map<String, Object>> entries = new ArrayList<>();
+    private final Set<String> phases = new LinkedHashSet<>();
+    // Microseconds, three significant digits, resized as needed
+    private final Histogram latency = new Histogram(3);
+    private final long startNanos = System.nanoTime();
+    private long inputBytes;
+    private int failed;
+
+    RunReport(Path target) {
+        this.target = target;
+    }
+
+    /**
+     * Record one converted (or failed) input; {@code writeNanos} is -1 when the
+     * output went to an archive and was written elsewhere.
+     */
+    void add(String input, long bytes, ConversionOutcome outcome, long readNanos, long convertNanos,
+            long writeNanos) {
+        Map<String, Object> entry = entry(input, bytes, outcome.isSuccess() ? "ok" : "failed");
+        entry.put("elements", outcome.getElementCount());
+        entry.put("flows", outcome.getFlowCount());
+        entry.put("shapes", outcome.getShapeCount());
+        entry.put("readMillis", readNanos / 1e6);
+        entry.put("convertMillis", convertNanos / 1e6);
+        entry.put("writeMillis", writeNanos >= 0 ? writeNanos / 1e6 : null);
+        entry.put("cpuMillis", outcome.getCpuMillis() >= 0 ? outcome.getCpuMillis() : null);
+        entry.put("allocatedBytes", outcome.getAllocatedBytes() >= 0 ? outcome.getAllocatedBytes() : null);
+        entry.put("phases", outcome.getTimings());
+        phases.addAll(outcome.getTimings().keySet());
+        latency.recordValue(Math.max(0, convertNanos / 1000));
+        if (!outcome.isSuccess()) {
+            failed++;
+        }
+    }
+
+    /**
+     * Record an input that could not be read.
+     */
+    void addError(String input, long bytes, String error) {
+        entry(input, bytes, "error").put("error", error);
+        failed++;
+    }
+
+    private Map<String, Object> entry(String input, long bytes, String status) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("input", input);
+        entry.put("inputBytes", bytes);
+        entry.put("status", status);
+        entries.add(entry);
+        inputBytes += bytes;
+        return entry;
+    }
+
+    /**
+     * Aggregate figures: counts, throughput over the wall-clock time since the
+     * report was created, and conversion latency percentiles in milliseconds.
+     */
+    Map<String, Object> summary() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        for (double p : PERCENTILES) {
+            latencyMillis.put("p" + (int) p, latency.getValueAtPercentile(p) / 1000.0);
+        }
+        latencyMillis.put("max", latency.getMaxValue() / 1000.0);
+        latencyMillis.put("mean", latency.getMean() / 1000.0);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("files", entries.size());
+        summary.put("failed", failed);
+        summary.put("inputBytes", inputBytes);
+        summary.put("wallSeconds", seconds);
+        summary.put("filesPerSecond", entries.size() / seconds);
+        summary.put("inputMBPerSecond", inputBytes / 1e6 / seconds);
+        summary.put("latencyMillis", latencyMillis);
+        return summary;
+    }
+
+    void write(PrintStream out) throws IOException {
+        Map<String, Object> summary = summary();
+        if (target.getFileName().toString().toLowerCase().endsWith(".csv")) {
+            writeCsv(summary);
+        } else {
+            Map<String, Object> report = new LinkedHashMap<>(summary);
+            report.put("entries", entries);
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(target.toFile(), report);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> latencyMillis = (Map<String, Object>) summary.get("latencyMillis");
+        out.printf("Report written to %s: %d file(s), %d failed, %.1f files/s, %.2f MB/s, "
+                + "p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms%n", target, entries.size(), failed,
+                summary.get("filesPerSecond"), summary.get("inputMBPerSecond"), latencyMillis.get("p50"),
+                latencyMillis.get("p90"), latencyMillis.get("p99"), latencyMillis.get("max"));
+    }
+
+    private void writeCsv(Map<String, Object> summary) throws IOException {
+        List<String> columns = new ArrayList<>(List.of("input", "inputBytes", "status", "elements", "flows",
+                "shapes", "readMillis", "convertMillis", "writeMillis", "cpuMillis", "allocatedBytes"));
+        try (BufferedWriter w = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            List<String> header = new ArrayList<>(columns);
+            phases.forEach(p -> header.add("phase." + p + "Millis"));
+            header.add("error");
+            w.write(String.join(",", header));
+            w.newLine();
+            for (Map<String, Object> entry : entries) {
+                List<String> row = new ArrayList<>();
+                columns.forEach(c -> row.add(csv(entry.get(c))));
+                @SuppressWarnings("unchecked")
+                Map<String, Double> timings = (Map<String, Double>) entry.getOrDefault("phases", Map.of());
+                phases.forEach(p -> row.add(csv(timings.get(p))));
+                row.add(csv(entry.get("error")));
+                w.write(String.join(",", row));
+                w.newLine();
+            }
+            for (Map.Entry<String, Object> e : summary.entrySet()) {
+                if (e.getValue() instanceof Map<?, ?> nested) {
+                    for (Map.Entry<?, ?> n : nested.entrySet()) {
+                        w.write("# " + e.getKey() + "." + n.getKey() + "=" + n.getValue());
+                        w.newLine();
+                    }
+                } else {
+                    w.write("# " + e.getKey() + "=" + e.getValue());
+                    w.newLine();
+                }
+            }
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String s = value.toString();
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0) {
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+        return s;
+    }
+}
@@ -0,0 +1,72 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Admission control limits for conversion requests ({@code bpmn.admission.*}).
+ * A request is admitted only while both the number of running conversions and
+ * the total request bytes in flight stay within budget; otherwise it waits up
+ * to {@code max-queue-wait} in a queue of at most {@code max-queued} requests
+ * before being rejected with {@code 429 Too Many Requests}. Unset limits are
+ * derived from the CPUs and heap available ({@link ResourceSizing}).
+ */
+@ConfigurationProperties(prefix = "bpmn.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+    private int maxConcurrent = ResourceSizing.current().maxConcurrent();
+    private long maxInFlightBytes = ResourceSizing.current().maxInFlightBytes();
+    private int maxQueued = ResourceSizing.current().maxQueued();
+    private Duration maxQueueWait = Duration.ofSeconds(2);
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    public void setMaxInFlightBytes(long maxInFlightBytes) {
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public Duration getMaxQueueWait() {
+        return maxQueueWait;
+    }
+
+    public void setMaxQueueWait(Duration maxQueueWait) {
+        this.maxQueueWait = maxQueueWait;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,43 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * On-demand Flight Recorder settings ({@code bpmn.jfr.*}) for
+ * {@code /actuator/jfr}: recordings last {@code default-duration} unless the
+ * caller asks otherwise, never more than {@code max-duration}, and use the
+ * named JDK settings ({@code default} or {@code profile}).
+ */
+@ConfigurationProperties(prefix = "bpmn.jfr")
+public class JfrProperties {
+
+    private Duration defaultDuration = Duration.ofSeconds(30);
+    private Duration maxDuration = Duration.ofMinutes(5);
+    private String settings = "profile";
+
+    public Duration getDefaultDuration() {
+        return defaultDuration;
+    }
+
+    public void setDefaultDuration(Duration defaultDuration) {
+        this.defaultDuration = defaultDuration;
+    }
+
+    public Duration getMaxDuration() {
+        return maxDuration;
+    }
+
+    public void setMaxDuration(Duration maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public void setSettings(String settings) {
+        this.settings = settings;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the size-aware conversion lanes ({@code bpmn.lanes.*}).
+ * Inputs up to {@code fast-max-bytes} run in the fast lane, everything larger
+ * in the bulk lane, each with its own concurrency limit. Unset limits are
+ * derived from the CPUs available ({@link ResourceSizing}).
+ */
+@ConfigurationProperties(prefix = "bpmn.lanes")
+public class LaneProperties {
+
+    private long fastMaxBytes = 1024 * 1024;
+    private int fastConcurrency = ResourceSizing.current().fastConcurrency();
+    private int bulkConcurrency = ResourceSizing.current().bulkConcurrency();
+
+    public long getFastMaxBytes() {
+        return fastMaxBytes;
+    }
+
+    public void setFastMaxBytes(long fastMaxBytes) {
+        this.fastMaxBytes = fastMaxBytes;
+    }
+
+    public int getFastConcurrency() {
+        return fastConcurrency;
+    }
+
+    public void setFastConcurrency(int fastConcurrency) {
+        this.fastConcurrency = fastConcurrency;
+    }
+
+    public int getBulkConcurrency() {
+        return bulkConcurrency;
+    }
+
+    public void setBulkConcurrency(int bulkConcurrency) {
+        this.bulkConcurrency = bulkConcurrency;
+    }
+}
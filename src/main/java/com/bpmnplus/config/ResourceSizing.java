@@ -0,0 +1,109 @@
+package com.bpmnplus.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Resources of the container the JVM runs in, read once at startup, and the
+ * defaults derived from them for the {@code bpmn.*} properties that have no
+ * explicit value in {@code application.yml}.
+ * The JVM already reads the cgroup CPU quota for
+ * {@link Runtime#availableProcessors()} (override with
+ * {@code -XX:ActiveProcessorCount}) and sizes {@code MaxHeapSize} from the
+ * memory limit, so a 1-CPU sidecar and a 32-core batch node get pools,
+ * budgets and caches to match without a different image.
+ */
+public final class ResourceSizing {
+
+    private static final long MB = 1024 * 1024;
+
+    private static final ResourceSizing CURRENT = new ResourceSizing(Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().maxMemory(), physicalMemory());
+
+    private final int cpus;
+    private final long maxHeapBytes;
+    private final long memoryLimitBytes;
+
+    ResourceSizing(int cpus, long maxHeapBytes, long memoryLimitBytes) {
+        this.cpus = Math.max(1, cpus);
+        this.maxHeapBytes = maxHeapBytes;
+        this.memoryLimitBytes = memoryLimitBytes;
+    }
+
+    public static ResourceSizing current() {
+        return CURRENT;
+    }
+
+    public int getCpus() {
+        return cpus;
+    }
+
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+
+    /**
+     * Memory visible to the JVM (the container limit when there is one), or
+     * -1 if the platform does not report it.
+     */
+    public long getMemoryLimitBytes() {
+        return memoryLimitBytes;
+    }
+
+    /** Fast lane threads: one per CPU, at least two so one slow file cannot stall the lane. */
+    public int fastConcurrency() {
+        return Math.max(2, cpus);
+    }
+
+    /** Bulk lane threads: a quarter of the CPUs, so large files cannot take over the node. */
+    public int bulkConcurrency() {
+        return Math.max(1, cpus / 4);
+    }
+
+    /** Admitted conversions: one per CPU, at least two. */
+    public int maxConcurrent() {
+        return Math.max(2, cpus);
+    }
+
+    /** Request bytes in flight: a quarter of the heap, leaving room for the parsed model and output. */
+    public long maxInFlightBytes() {
+        return maxHeapBytes / 4;
+    }
+
+    /** Admission queue length: sixteen waiting requests per CPU, between 16 and 512. */
+    public int maxQueued() {
+        return clamp(cpus * 16, 16, 512);
+    }
+
+    /** Slow-conversion captures kept on the heap: one per 64 MB of heap, between 4 and 100. */
+    public int slowCaptureCapacity() {
+        return clamp((int) Math.min(Integer.MAX_VALUE, maxHeapBytes / (64 * MB)), 4, 100);
+    }
+
+    /** Input bytes those captures may hold together: a thirty-second of the heap. */
+    public long slowCaptureBytes() {
+        return maxHeapBytes / 32;
+    }
+
+    /** Inputs waiting for a shadow comparison: a thirty-second of the heap. */
+    public long shadowPendingBytes() {
+        return maxHeapBytes / 32;
+    }
+
+    /** Converted results kept on the heap for download: a sixteenth of the heap; older ones spill to disk. */
+    public long resultMemoryBytes() {
+        return maxHeapBytes / 16;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static long physicalMemory() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean bean) {
+            return bean.getTotalMemorySize();
+        }
+        return -1;
+    }
+}
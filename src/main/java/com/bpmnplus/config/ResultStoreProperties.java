@@ -0,0 +1,64 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Converted-result store ({@code bpmn.results.*}): results are kept on the
+ * heap up to {@code max-memory-bytes} (derived from the heap size by
+ * {@link ResourceSizing} unless set), the least recently downloaded beyond
+ * that are written to {@code spool-dir}, up to {@code max-disk-bytes} there
+ * (the oldest spilled are dropped beyond that), and all of them are dropped
+ * {@code expiry} after they were produced, checked every
+ * {@code sweep-interval}.
+ */
+@ConfigurationProperties(prefix = "bpmn.results")
+public class ResultStoreProperties {
+
+    private long maxMemoryBytes = ResourceSizing.current().resultMemoryBytes();
+    private String spoolDir = "results";
+    private long maxDiskBytes = 1L << 30;
+    private Duration expiry = Duration.ofHours(1);
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    public long getMaxMemoryBytes() {
+        return maxMemoryBytes;
+    }
+
+    public void setMaxMemoryBytes(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    public String getSpoolDir() {
+        return spoolDir;
+    }
+
+    public void setSpoolDir(String spoolDir) {
+        this.spoolDir = spoolDir;
+    }
+
+    public long getMaxDiskBytes() {
+        return maxDiskBytes;
+    }
+
+    public void setMaxDiskBytes(long maxDiskBytes) {
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    public Duration getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(Duration expiry) {
+        this.expiry = expiry;
+    }
+
+    public Duration getSweepInterval() {
+        return sweepInterval;
+    }
+
+    public void setSweepInterval(Duration sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Shadow mode settings ({@code bpmn.shadow.*}): a sampled share of
+ * conversions is re-run off the request thread through both the regex parser
+ * and the candidate StAX parser, and divergences are captured for replay.
+ * Sampled inputs wait for the shadow thread in a queue of at most
+ * {@code max-pending} entries holding together at most
+ * {@code max-pending-bytes} (derived from the heap size by
+ * {@link ResourceSizing} unless set); samples beyond either are dropped.
+ */
+@ConfigurationProperties(prefix = "bpmn.shadow")
+public class ShadowProperties {
+
+    private boolean enabled = false;
+    private double sampleRate = 0.01;
+    private int maxPending = 16;
+    private long maxPendingBytes = ResourceSizing.current().shadowPendingBytes();
+    private String captureDir = "shadow-divergences";
+    private int maxCaptures = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public long getMaxPendingBytes() {
+        return maxPendingBytes;
+    }
+
+    public void setMaxPendingBytes(long maxPendingBytes) {
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    public String getCaptureDir() {
+        return captureDir;
+    }
+
+    public void setCaptureDir(String captureDir) {
+        this.captureDir = captureDir;
+    }
+
+    public int getMaxCaptures() {
+        return maxCaptures;
+    }
+
+    public void setMaxCaptures(int maxCaptures) {
+        this.maxCaptures = maxCaptures;
+    }
+}
@@ -0,0 +1,52 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Slow-conversion capture settings ({@code bpmn.slow-capture.*}): when
+ * enabled, the inputs of the {@code capacity} slowest conversions taking at
+ * least {@code min-millis}, together at most {@code max-bytes}, are kept in
+ * memory for export and offline replay. Off by default, since the captures
+ * are raw customer uploads. The default capacity and byte budget are derived
+ * from the heap size ({@link ResourceSizing}).
+ */
+@ConfigurationProperties(prefix = "bpmn.slow-capture")
+public class SlowCaptureProperties {
+
+    private boolean enabled = false;
+    private int capacity = ResourceSizing.current().slowCaptureCapacity();
+    private long maxBytes = ResourceSizing.current().slowCaptureBytes();
+    private long minMillis = 200;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMinMillis() {
+        return minMillis;
+    }
+
+    public void setMinMillis(long minMillis) {
+        this.minMillis = minMillis;
+    }
+}
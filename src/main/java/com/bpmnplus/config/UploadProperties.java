@@ -0,0 +1,95 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Resumable chunked uploads ({@code bpmn.upload.*}). Chunks are written into
+ * one spool file per upload under {@code spool-dir} (created by the first
+ * upload); uploads without activity for {@code expiry} are discarded along
+ * with their spool file. At most {@code max-open-uploads} exist at once,
+ * since each holds an open spool file.
+ * Clients get {@code chunk-size} unless they ask for a smaller one, but not
+ * below {@code min-chunk-size}; an upload has at most {@code max-chunks}
+ * chunks, which bounds the per-upload bookkeeping.
+ * {@code max-file-size} is capped at {@code bpmn.admission.max-in-flight-bytes},
+ * since the conversion holds the decoded file on the heap.
+ */
+@ConfigurationProperties(prefix = "bpmn.upload")
+public class UploadProperties {
+
+    private boolean enabled = true;
+    private String spoolDir = "uploads";
+    private DataSize chunkSize = DataSize.ofMegabytes(4);
+    private DataSize minChunkSize = DataSize.ofKilobytes(64);
+    private int maxChunks = 8192;
+    private DataSize maxFileSize = DataSize.ofMegabytes(512);
+    private Duration expiry = Duration.ofHours(1);
+    private int maxOpenUploads = 64;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSpoolDir() {
+        return spoolDir;
+    }
+
+    public void setSpoolDir(String spoolDir) {
+        this.spoolDir = spoolDir;
+    }
+
+    public DataSize getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(DataSize chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public DataSize getMinChunkSize() {
+        return minChunkSize;
+    }
+
+    public void setMinChunkSize(DataSize minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    public void setMaxChunks(int maxChunks) {
+        this.maxChunks = maxChunks;
+    }
+
+    public DataSize getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(DataSize maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public Duration getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(Duration expiry) {
+        this.expiry = expiry;
+    }
+
+    public int getMaxOpenUploads() {
+        return maxOpenUploads;
+    }
+
+    public void setMaxOpenUploads(int maxOpenUploads) {
+        this.maxOpenUploads = maxOpenUploads;
+    }
+}
@@ -0,0 +1,25 @@
+package com.bpmnplus.config;
+
+import com.bpmnplus.service.ConversionAdmission;
+import com.bpmnplus.web.AdmissionFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Servlet filter registrations for the conversion endpoints.
+ */
+@Configuration
+public class WebConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "bpmn.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(ConversionAdmission admission) {
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(new AdmissionFilter(admission));
+        registration.addUrlPatterns("/convert");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
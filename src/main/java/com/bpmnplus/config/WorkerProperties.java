@@ -0,0 +1,80 @@
+package com.bpmnplus.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the spool-directory worker mode ({@code bpmn.worker.*}).
+ * Several instances pointed at the same {@code spool-dir} share the inbox and
+ * coordinate purely through atomic renames on the shared volume. A file still
+ * in a worker's own work directory after {@code max-attempts} conversion
+ * attempts (e.g. because the process died on it) is moved to {@code failed}.
+ */
+@ConfigurationProperties(prefix = "bpmn.worker")
+public class WorkerProperties {
+
+    private boolean enabled = false;
+    private String spoolDir = "spool";
+    private String workerId;
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private Duration leaseTimeout = Duration.ofMinutes(5);
+    private int batchSize = 16;
+    private int maxAttempts = 3;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSpoolDir() {
+        return spoolDir;
+    }
+
+    public void setSpoolDir(String spoolDir) {
+        this.spoolDir = spoolDir;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(String workerId) {
+        this.workerId = workerId;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public Duration getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    public void setLeaseTimeout(Duration leaseTimeout) {
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+}
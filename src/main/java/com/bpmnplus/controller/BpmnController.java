@@ -1,10 +1,19 @@
 package com.bpmnplus.controller;
 
+import com.bpmnplus.config.AdmissionProperties;
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionProfile;
+import com.bpmnplus.model.ConversionOutcome;
 import com.bpmnplus.model.ConvertResult;
-import com.bpmnplus.service.BpmnConvertService;
+import com.bpmnplus.model.OutputFormat;
+import com.bpmnplus.service.ConversionAdmission;
+import com.bpmnplus.service.ConversionScheduler;
+import com.bpmnplus.service.ResultStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +23,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Web controller providing the HTML frontend and the /convert API endpoint.
@@ -24,10 +35,17 @@ public class BpmnController {
 
     private static final Logger log = LoggerFactory.getLogger(BpmnController.class);
 
-    private final BpmnConvertService convertService;
+    private final ConversionScheduler scheduler;
+    private final ResultStore results;
+    private final ConversionAdmission admission;
+    private final AdmissionProperties admissionProperties;
 
-    public BpmnController(BpmnConvertService convertService) {
-        this.convertService = convertService;
+    public BpmnController(ConversionScheduler scheduler, ResultStore results, ConversionAdmission admission,
+            AdmissionProperties admissionProperties) {
+        this.scheduler = scheduler;
+        this.results = results;
+        this.admission = admission;
+        this.admissionProperties = admissionProperties;
     }
 
     /**
@@ -45,36 +63,129 @@ public class BpmnController {
 
     /**
      * Batch convert uploaded BPMN files.
+     * Files are dispatched to the fast or bulk lane by size and converted
+     * concurrently; results keep the upload order. With {@code validate=true}
+     * each result carries a BPMN 2.0 schema validation report; with
+     * {@code profile=true}, its phase timings, CPU time and allocation.
+     * {@code format=json} returns each converted graph as a JSON object in the
+     * result's {@code graph} field instead of Camunda XML in {@code content};
+     * CBOR is binary and so is not offered for this JSON response.
+     * Converted XML is kept in the {@link ResultStore} and each result is a
+     * descriptor for {@code GET /results/{id}}; {@code inline=true} returns
+     * the XML in {@code content} instead.
+     * The request's bytes are reserved by the {@code AdmissionFilter}; a
+     * {@link ConversionAdmission} concurrency slot is taken here, once the
+     * body has been read, and held while the files convert. A batch takes a
+     * single slot however many files it has: the lanes bound how many of
+     * them run at once.
      */
     @PostMapping("/convert")
     public ResponseEntity<Map<String, Object>> batchConvert(
-            @RequestParam("files") MultipartFile[] files) {
+            @RequestParam("files") MultipartFile[] files,
+            @RequestParam(value = "validate", defaultValue = "false") boolean validate,
+            @RequestParam(value = "profile", defaultValue = "false") boolean profile,
+            @RequestParam(value = "format", defaultValue = "xml") String format,
+            @RequestParam(value = "inline", defaultValue = "false") boolean inline) {
 
-        List<ConvertResult> results = new ArrayList<>();
+        ConversionOptions options = new ConversionOptions();
+        options.setValidate(validate);
+        options.setFormat(outputFormat(format));
+        if (options.getFormat() == null || options.getFormat() == OutputFormat.CBOR) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported format: " + format));
+        }
+        ConversionAdmission.Permit slot = admissionProperties.isEnabled() ? acquireSlot() : null;
+        if (slot == null && admissionProperties.isEnabled()) {
+            log.warn("Rejected {} file(s): conversion capacity saturated", files.length);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()))
+                    .body(Map.of("error", "Too many conversions in progress, retry later"));
+        }
+        try (slot) {
+            return ResponseEntity.ok(convertAll(files, options, profile, inline));
+        }
+    }
+
+    private Map<String, Object> convertAll(MultipartFile[] files, ConversionOptions options, boolean profile,
+            boolean inline) {
+        List<CompletableFuture<ConversionOutcome>> pending = new ArrayList<>();
         for (MultipartFile file : files) {
-            try {
-                String content = new String(file.getBytes(), StandardCharsets.UTF_8);
-                String converted = convertService.performConversion(content, file.getOriginalFilename());
+            pending.add(scheduler.submit(file, file.getOriginalFilename(), file.getSize(), options));
+        }
 
-                if (converted != null) {
-                    String baseName = file.getOriginalFilename();
-                    int dotIdx = baseName != null ? baseName.lastIndexOf('.') : -1;
-                    String newName = (dotIdx > 0 ? baseName.substring(0, dotIdx) : baseName)
-                            + "_camunda.bpmn";
-                    results.add(new ConvertResult(newName, converted, true));
+        List<ConvertResult> results = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
+            MultipartFile file = files[i];
+            try {
+                ConversionOutcome outcome = pending.get(i).join();
+                results.add(toResult(file.getOriginalFilename(), outcome, options.getFormat(), profile,
+                        inline ? null : this.results));
+                if (outcome.isSuccess()) {
                     log.info("✓ {}", file.getOriginalFilename());
                 } else {
-                    results.add(new ConvertResult(file.getOriginalFilename(), "", false));
                     log.warn("✗ {}: no processes found", file.getOriginalFilename());
                 }
             } catch (Exception e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
                 results.add(new ConvertResult(file.getOriginalFilename(), "", false));
-                log.error("✗ {}: {}", file.getOriginalFilename(), e.getMessage(), e);
+                log.error("✗ {}: {}", file.getOriginalFilename(), cause.getMessage(), cause);
             }
         }
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("results", results);
-        return ResponseEntity.ok(response);
+        return response;
+    }
+
+    private ConversionAdmission.Permit acquireSlot() {
+        try {
+            return admission.tryAcquireSlot();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * The result for one converted input: named {@code <base>_camunda.bpmn}
+     * (or {@code .json}), or a failed result under the original name.
+     * Converted XML goes into {@code store} and the result describes it, or
+     * is returned inline when {@code store} is null.
+     */
+    static ConvertResult toResult(String filename, ConversionOutcome outcome, OutputFormat format,
+            boolean profile, ResultStore store) {
+        if (!outcome.isSuccess()) {
+            return new ConvertResult(filename, "", false);
+        }
+        int dotIdx = filename != null ? filename.lastIndexOf('.') : -1;
+        String newName = (dotIdx > 0 ? filename.substring(0, dotIdx) : filename) + "_camunda" + format.getExtension();
+        ConvertResult result = new ConvertResult(newName, null, true);
+        if (outcome.getXml() != null && store != null) {
+            ResultStore.Entry entry = store.put(newName, format.getMediaType(),
+                    outcome.getXml().getBytes(StandardCharsets.UTF_8));
+            result.setId(entry.getId());
+            result.setSize(entry.getSize());
+            result.setDigest(entry.getDigest());
+        } else {
+            result.setContent(outcome.getXml());
+        }
+        if (outcome.getGraph() != null) {
+            result.setGraph(new String(outcome.getGraph(), StandardCharsets.UTF_8));
+        }
+        result.setValidation(outcome.getValidation());
+        if (profile) {
+            result.setProfile(new ConversionProfile(outcome));
+        }
+        return result;
+    }
+
+    /**
+     * The format named by a {@code format} parameter, or null if unknown.
+     */
+    static OutputFormat outputFormat(String format) {
+        try {
+            return OutputFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,60 @@
+package com.bpmnplus.controller;
+
+import com.bpmnplus.config.ResultStoreProperties;
+import com.bpmnplus.service.ResultStore;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Downloads of converted results ({@link ResultStore}) by the id in their
+ * descriptor. The ETag is the content's SHA-256, so a repeated download with
+ * {@code If-None-Match} is answered 304 without a body, and {@code Range}
+ * requests get 206 with just the requested bytes; Spring MVC handles both
+ * for a {@link Resource} body.
+ */
+@RestController
+public class ResultController {
+
+    private final ResultStore results;
+    private final ResultStoreProperties properties;
+
+    public ResultController(ResultStore results, ResultStoreProperties properties) {
+        this.results = results;
+        this.properties = properties;
+    }
+
+    @GetMapping("/results/{id}")
+    public ResponseEntity<Resource> download(@PathVariable("id") String id) {
+        ResultStore.Entry entry = results.get(id);
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .eTag(entry.getDigest())
+                // Content under an id never changes, but is gone after the expiry
+                .cacheControl(CacheControl.maxAge(properties.getExpiry()).cachePrivate())
+                .contentType(MediaType.parseMediaType(entry.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(entry.getFilename()))
+                .body(entry.resource());
+    }
+
+    private static String contentDisposition(String filename) {
+        ContentDisposition.Builder builder = ContentDisposition.attachment();
+        // Uploads keep their original, often non-ASCII, names; those need the RFC 5987 form
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(filename)) {
+            builder.filename(filename);
+        } else {
+            builder.filename(filename, StandardCharsets.UTF_8);
+        }
+        return builder.build().toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.bpmnplus.controller;
+
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import com.bpmnplus.model.ConvertResult;
+import com.bpmnplus.model.OutputFormat;
+import com.bpmnplus.service.ChunkedUploads;
+import com.bpmnplus.service.ResultStore;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Resumable chunked upload API ({@link ChunkedUploads}):
+ * <ol>
+ * <li>{@code POST /uploads?filename=&size=[&chunkSize=&validate=&format=]}
+ * starts an upload and answers with its id, chunk size and chunk count;</li>
+ * <li>{@code PUT /uploads/{id}/chunks/{index}} with the raw chunk bytes and
+ * their hex SHA-256 in {@code X-Chunk-SHA256}, in any order, retrying any
+ * chunk that failed (a chunk already stored gets 409);</li>
+ * <li>{@code POST /uploads/{id}/complete[?profile=&inline=]} returns the conversion
+ * result, in the same form as one entry of {@code /convert}. Conversion already
+ * started when the last chunk arrived, unless admission was saturated then; in
+ * that case it starts here, or the answer is 429 with {@code Retry-After}.</li>
+ * </ol>
+ * {@code GET /uploads/{id}} lists received and missing chunks for resuming;
+ * {@code DELETE /uploads/{id}} abandons an upload.
+ */
+@RestController
+@RequestMapping("/uploads")
+@ConditionalOnProperty(prefix = "bpmn.upload", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class UploadController {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadController.class);
+
+    static final String CHECKSUM_HEADER = "X-Chunk-SHA256";
+
+    private final ChunkedUploads uploads;
+    private final ResultStore results;
+
+    public UploadController(ChunkedUploads uploads, ResultStore results) {
+        this.uploads = uploads;
+        this.results = results;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> initiate(
+            @RequestParam("filename") String filename,
+            @RequestParam("size") long size,
+            @RequestParam(value = "chunkSize", defaultValue = "0") long chunkSize,
+            @RequestParam(value = "validate", defaultValue = "false") boolean validate,
+            @RequestParam(value = "format", defaultValue = "xml") String format) throws IOException {
+        ConversionOptions options = new ConversionOptions();
+        options.setValidate(validate);
+        options.setFormat(BpmnController.outputFormat(format));
+        if (options.getFormat() == null || options.getFormat() == OutputFormat.CBOR) {
+            return error(HttpStatus.BAD_REQUEST, "Unsupported format: " + format);
+        }
+        try {
+            ChunkedUploads.Upload upload = uploads.initiate(filename, size, chunkSize, options);
+            return ResponseEntity.created(URI.create("/uploads/" + upload.getId())).body(upload.describe());
+        } catch (ChunkedUploads.UploadException e) {
+            return error(e);
+        }
+    }
+
+    @PutMapping("/{id}/chunks/{index}")
+    public ResponseEntity<Map<String, Object>> putChunk(@PathVariable("id") String id,
+            @PathVariable("index") int index,
+            @RequestHeader(value = CHECKSUM_HEADER, required = false) String sha256,
+            HttpServletRequest request) throws IOException {
+        try (InputStream body = request.getInputStream()) {
+            return ResponseEntity.ok(uploads.putChunk(id, index, body, sha256).describe());
+        } catch (ChunkedUploads.UploadException e) {
+            return error(e);
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable("id") String id) {
+        try {
+            return ResponseEntity.ok(uploads.get(id).describe());
+        } catch (ChunkedUploads.UploadException e) {
+            return error(e);
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable("id") String id,
+            @RequestParam(value = "profile", defaultValue = "false") boolean profile,
+            @RequestParam(value = "inline", defaultValue = "false") boolean inline) throws IOException {
+        ChunkedUploads.Upload upload;
+        ConversionOutcome outcome;
+        try {
+            upload = uploads.get(id);
+            outcome = uploads.complete(id).join();
+        } catch (ChunkedUploads.UploadException e) {
+            return error(e);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("✗ {}: {}", id, cause.getMessage(), cause);
+            return ResponseEntity.ok(new ConvertResult(id, "", false));
+        }
+        ConvertResult result = BpmnController.toResult(upload.getFilename(), outcome,
+                upload.getOptions().getFormat(), profile, inline ? null : results);
+        if (outcome.isSuccess()) {
+            log.info("✓ {} (chunked upload {})", upload.getFilename(), id);
+        } else {
+            log.warn("✗ {} (chunked upload {}): no processes found", upload.getFilename(), id);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> abort(@PathVariable("id") String id) {
+        try {
+            uploads.abort(id);
+            return ResponseEntity.noContent().build();
+        } catch (ChunkedUploads.UploadException e) {
+            return error(e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> error(ChunkedUploads.UploadException e) {
+        HttpStatus status = switch (e.getFailure()) {
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case CONFLICT -> HttpStatus.CONFLICT;
+            case CHECKSUM_MISMATCH -> HttpStatus.UNPROCESSABLE_ENTITY;
+            case INVALID -> HttpStatus.BAD_REQUEST;
+            case SATURATED -> HttpStatus.TOO_MANY_REQUESTS;
+        };
+        if (status == HttpStatus.TOO_MANY_REQUESTS) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", e.getMessage());
+            return ResponseEntity.status(status)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(uploads.getRetryAfterSeconds()))
+                    .body(body);
+        }
+        return error(status, e.getMessage());
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return ResponseEntity.status(status).body(body);
+    }
+}
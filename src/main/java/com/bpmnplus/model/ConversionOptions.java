@@ -0,0 +1,54 @@
+package com.bpmnplus.model;
+
+/**
+ * Per-request switches for a conversion.
+ */
+public class ConversionOptions {
+
+    private boolean validate;
+    private OutputFormat format = OutputFormat.XML;
+    private boolean deadlineSet;
+    private long deadlineNanos;
+
+    public ConversionOptions() {
+    }
+
+    public boolean isValidate() {
+        return validate;
+    }
+
+    public void setValidate(boolean validate) {
+        this.validate = validate;
+    }
+
+    /**
+     * Output format; schema validation applies to {@link OutputFormat#XML} only.
+     */
+    public OutputFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(OutputFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * True if the conversion must give up at {@link #getDeadlineNanos()}.
+     */
+    public boolean hasDeadline() {
+        return deadlineSet;
+    }
+
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * Cancel the conversion at its next phase boundary or routed edge once
+     * {@link System#nanoTime()} passes {@code nanoTime}.
+     */
+    public void setDeadlineNanos(long nanoTime) {
+        this.deadlineNanos = nanoTime;
+        this.deadlineSet = true;
+    }
+}
@@ -1,13 +1,33 @@
 package com.bpmnplus.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
 /**
- * Represents the result of converting a single BPMN file.
+ * Represents the result of converting a single BPMN file. A stored result is
+ * a descriptor: its {@code id} for {@code GET /results/{id}}, its size in
+ * bytes and hex SHA-256, with no {@code content}.
  */
 public class ConvertResult {
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String id;
     private String filename;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long size;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String digest;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String content;
     private boolean success;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ValidationReport validation;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ConversionProfile profile;
+    // Graph JSON for format=json, embedded as is rather than as a string
+    @JsonRawValue
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String graph;
 
     public ConvertResult() {
     }
@@ -18,6 +38,14 @@ public class ConvertResult {
         this.success = success;
     }
 
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public String getFilename() {
         return filename;
     }
@@ -26,6 +54,22 @@ public class ConvertResult {
         this.filename = filename;
     }
 
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public void setDigest(String digest) {
+        this.digest = digest;
+    }
+
     public String getContent() {
         return content;
     }
@@ -41,4 +85,28 @@ public class ConvertResult {
     public void setSuccess(boolean success) {
         this.success = success;
     }
+
+    public ValidationReport getValidation() {
+        return validation;
+    }
+
+    public void setValidation(ValidationReport validation) {
+        this.validation = validation;
+    }
+
+    public ConversionProfile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(ConversionProfile profile) {
+        this.profile = profile;
+    }
+
+    public String getGraph() {
+        return graph;
+    }
+
+    public void setGraph(String graph) {
+        this.graph = graph;
+    }
 }
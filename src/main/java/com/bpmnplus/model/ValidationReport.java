@@ -0,0 +1,40 @@
+package com.bpmnplus.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of validating converted output against the bundled BPMN 2.0 schemas.
+ * {@code latencyMillis} is the time the request waited for validation after
+ * the last line of output had been written.
+ */
+public class ValidationReport {
+
+    private boolean valid;
+    private List<ValidationIssue> issues = new ArrayList<>();
+    private long latencyMillis;
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public List<ValidationIssue> getIssues() {
+        return issues;
+    }
+
+    public void setIssues(List<ValidationIssue> issues) {
+        this.issues = issues;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+}
@@ -1,13 +1,30 @@
 package com.bpmnplus.service;
 
 import com.bpmnplus.model.*;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Core BPMN conversion service.
@@ -36,47 +53,250 @@ public class BpmnConvertService {
     private static final int[] DEFAULT_SIZE = { 100, 80 };
 
     // ── Standard BPMN flow-node tags ────────────────────────────────────────
-    private static final List<String> FLOW_NODE_TAGS = List.of(
+    static final List<String> FLOW_NODE_TAGS = List.of(
             "startEvent", "endEvent", "userTask", "serviceTask", "scriptTask",
             "sendTask", "receiveTask", "manualTask", "businessRuleTask", "task",
             "exclusiveGateway", "parallelGateway", "inclusiveGateway",
             "eventBasedGateway", "complexGateway", "subProcess", "callActivity",
             "intermediateCatchEvent", "intermediateThrowEvent", "boundaryEvent");
 
+    // ── Patterns applied inside element bodies ──────────────────────────────
+    private static final Pattern INCOMING = Pattern.compile("<(?:\\w+:)?incoming>([^<]*)</(?:\\w+:)?incoming>");
+    private static final Pattern OUTGOING = Pattern.compile("<(?:\\w+:)?outgoing>([^<]*)</(?:\\w+:)?outgoing>");
+    private static final Pattern CONDITION = Pattern.compile(
+            "<(?:\\w+:)?conditionExpression[^<>]*>(.*?)</(?:\\w+:)?conditionExpression>", Pattern.DOTALL);
+    private static final Pattern BOUNDS = Pattern.compile("\\b(?:\\w+:)?Bounds\\b([^<>]*)/?>");
+
+    // ── Graph output (format=json / format=cbor) ──────────────────────────────
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final JsonFactory CBOR = new CBORFactory();
+
     // ── Custom non-standard tags mapped to standard BPMN types ──────────────
-    private static final Map<String, CustomTagMapping> CUSTOM_TAG_MAP = new LinkedHashMap<>();
+    static final Map<String, CustomTagMapping> CUSTOM_TAG_MAP = new LinkedHashMap<>();
     static {
         CUSTOM_TAG_MAP.put("countersignTask", new CustomTagMapping("userTask", true));
         CUSTOM_TAG_MAP.put("multiInstanceTask", new CustomTagMapping("userTask", true));
     }
 
+    private final boolean deterministicIds;
+    private final BpmnSchemaValidator validator;
+    private final boolean validateAll;
+    private final List<ConversionListener> listeners = new CopyOnWriteArrayList<>();
+    private final InFlightConversions inFlight = new InFlightConversions();
+
+    public BpmnConvertService() {
+        this(true, null, false);
+    }
+
+    /**
+     * @param deterministicIds derive ids for elements without one from their
+     *                         position and attributes instead of random UUIDs,
+     *                         making repeated conversions byte-identical
+     * @param validator        schema validator for the optional validation
+     *                         stage, or null to disable it
+     * @param validateAll      validate every conversion, not only those that
+     *                         ask for it
+     */
+    @Autowired
+    public BpmnConvertService(@Value("${bpmn.convert.deterministic-ids:true}") boolean deterministicIds,
+            BpmnSchemaValidator validator,
+            @Value("${bpmn.validation.enabled:false}") boolean validateAll) {
+        this.deterministicIds = deterministicIds;
+        this.validator = validator;
+        this.validateAll = validateAll;
+    }
+
     // =====================================================================
     // Public API
     // =====================================================================
 
+    /**
+     * Conversions currently running in this service.
+     */
+    public InFlightConversions getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Register a listener notified after every conversion.
+     */
+    public void addListener(ConversionListener listener) {
+        listeners.add(listener);
+    }
+
     /**
      * Convert BPMN content string. Returns the converted XML or null on failure.
      */
-    public String performConversion(String content, String filename) {
+    public String performConversion(CharSequence content, String filename) {
+        return convert(content, filename, new ConversionOptions()).getXml();
+    }
+
+    /**
+     * Convert BPMN content with per-request options. The outcome carries the
+     * XML (null on failure) and, if validation was requested or is enabled
+     * globally, the schema validation report.
+     */
+    public ConversionOutcome convert(CharSequence content, String filename, ConversionOptions options) {
+        return convert(content, filename, options, ThreadUsage.cpuNanos(), ThreadUsage.allocatedBytes());
+    }
+
+    /**
+     * Convert without notifying listeners, for synthetic inputs (the startup
+     * warm-up) that must not show up in metrics or slow-conversion captures.
+     */
+    ConversionOutcome convertUnobserved(CharSequence content, String filename) {
+        return doConvert(content, filename, new ConversionOptions(), ThreadUsage.cpuNanos(),
+                ThreadUsage.allocatedBytes());
+    }
+
+    /**
+     * Convert and notify listeners. {@code cpu0} and {@code alloc0} are the
+     * calling thread's CPU time and allocation when the request started, so
+     * that reading a stream is charged to the conversion as well.
+     */
+    private ConversionOutcome convert(CharSequence content, String filename, ConversionOptions options,
+            long cpu0, long alloc0) {
+        ConversionOutcome outcome = doConvert(content, filename, options, cpu0, alloc0);
+        for (ConversionListener listener : listeners) {
+            try {
+                listener.onConversion(filename, content, options, outcome);
+            } catch (RuntimeException e) {
+                log.warn("Conversion listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        return outcome;
+    }
+
+    private ConversionOutcome doConvert(CharSequence content, String filename, ConversionOptions options,
+            long cpu0, long alloc0) {
+        ConversionOutcome outcome = new ConversionOutcome();
+        ConversionTrace trace = new ConversionTrace(filename, content.length());
+        InFlightConversions.Entry entry = inFlight.register(filename, content.length());
+        trace.track(entry);
+        if (options.hasDeadline()) {
+            trace.deadline(options.getDeadlineNanos());
+        }
+        ConversionEvent event = new ConversionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        outcome.setInputChars(content.length());
+        BpmnSchemaValidator.Session validation = null;
         try {
-            BpmnData data = parseFileContent(content);
+            ConversionTrace.Phase parse = trace.begin(ConversionTrace.PARSE);
+            BpmnData data = parseFileContent(content, trace);
+            for (BpmnProcess proc : data.getProcesses()) {
+                outcome.setElementCount(outcome.getElementCount() + proc.getElements().size());
+                outcome.setFlowCount(outcome.getFlowCount() + proc.getFlows().size());
+            }
+            outcome.setShapeCount(data.getShapes().size());
+            trace.setCounts(outcome.getElementCount(), outcome.getFlowCount(), outcome.getShapeCount());
+            parse.end();
             if (data.getProcesses().isEmpty()) {
                 log.warn("Warning: No processes found in {}", filename);
-                return null;
+                return outcome;
             }
-            return buildBpmn(data);
+
+            if (options.getFormat() != OutputFormat.XML) {
+                outcome.setGraph(buildGraph(data, options.getFormat() == OutputFormat.CBOR ? CBOR : JSON, trace));
+                return outcome;
+            }
+
+            if (validator != null && (validateAll || options.isValidate())) {
+                validation = validator.begin();
+            }
+            XmlOutput lines = new XmlOutput(validation != null ? validation.getWriter() : null);
+            buildBpmn(data, lines, trace);
+            lines.finish();
+            outcome.setXml(lines.toString());
+
+            if (validation != null) {
+                ConversionTrace.Phase phase = trace.begin(ConversionTrace.VALIDATION);
+                ValidationReport report = validation.finish();
+                validation = null;
+                phase.end(-1, outcome.getXml().length());
+                outcome.setValidation(report);
+                if (!report.isValid()) {
+                    log.warn("Schema validation of {} found {} issue(s)", filename, report.getIssues().size());
+                }
+            }
+            return outcome;
         } catch (Exception e) {
-            log.error("Conversion error in {}: {}", filename, e.getMessage(), e);
-            return null;
+            if (validation != null) {
+                validation.abort();
+            }
+            if (isCancellation(e)) {
+                log.info("Conversion of {} cancelled", filename);
+            } else {
+                log.error("Conversion error in {}: {}", filename, e.getMessage(), e);
+            }
+            outcome.setXml(null);
+            outcome.setGraph(null);
+            outcome.setValidation(null);
+            return outcome;
+        } finally {
+            inFlight.remove(entry);
+            outcome.setTotalMillis((System.nanoTime() - start) / 1_000_000.0);
+            outcome.setTimings(trace.toMillis());
+            if (cpu0 >= 0) {
+                outcome.setCpuMillis((ThreadUsage.cpuNanos() - cpu0 + trace.getWorkerCpuNanos()) / 1_000_000.0);
+            }
+            if (alloc0 >= 0) {
+                outcome.setAllocatedBytes(ThreadUsage.allocatedBytes() - alloc0 + trace.getWorkerAllocatedBytes());
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.filename = filename;
+                event.inputLength = outcome.getInputChars();
+                event.outputLength = outcome.getOutputLength();
+                event.elementCount = outcome.getElementCount();
+                event.flowCount = outcome.getFlowCount();
+                event.shapeCount = outcome.getShapeCount();
+                event.validated = outcome.getValidation() != null;
+                event.success = outcome.isSuccess();
+                event.commit();
+            }
         }
     }
 
+    /**
+     * Convert BPMN content read from a stream (e.g. an uploaded part) without
+     * first materialising it as a byte array. The stream is decoded as UTF-8
+     * straight into the parser's input buffer; {@code sizeHint} is the expected
+     * size in bytes, or -1 if unknown. The stream is not closed.
+     */
+    public String performConversion(InputStream input, long sizeHint, String filename) throws IOException {
+        return performConversion(readContent(input, sizeHint), filename);
+    }
+
+    /**
+     * Stream-reading variant of {@link #convert(CharSequence, String, ConversionOptions)}.
+     */
+    public ConversionOutcome convert(InputStream input, long sizeHint, String filename,
+            ConversionOptions options) throws IOException {
+        long cpu0 = ThreadUsage.cpuNanos();
+        long alloc0 = ThreadUsage.allocatedBytes();
+        return convert(readContent(input, sizeHint), filename, options, cpu0, alloc0);
+    }
+
     // =====================================================================
     // Parsing
     // =====================================================================
 
-    private BpmnData parseFileContent(String content) {
+    /**
+     * Parse on the calling thread only, for off-path work (shadow comparisons)
+     * that must not take fork-join threads from live conversions.
+     */
+    BpmnData parseSequentially(CharSequence content) {
+        return parseFileContent(content, new ConversionTrace(), false);
+    }
+
+    BpmnData parseFileContent(CharSequence content, ConversionTrace trace) {
+        return parseFileContent(content, trace, true);
+    }
+
+    private BpmnData parseFileContent(CharSequence content, ConversionTrace trace, boolean parallel) {
         BpmnData data = new BpmnData();
+        IdGenerator ids = new IdGenerator(deterministicIds);
 
         // Extract definitions basics
         Matcher defMatch = Pattern.compile("<(?:\\w+:)?definitions\\b([^>]*)>", Pattern.DOTALL).matcher(content);
@@ -86,49 +306,83 @@ public class BpmnConvertService {
             data.setDefinitionsId(id != null ? id : "Definitions_1");
         }
 
-        // Extract process blocks
-        Pattern processPattern = Pattern.compile(
-                "<(?:\\w+:)?process\\b([^>]*)>(.*?)</(?:\\w+:)?process>", Pattern.DOTALL);
-        Matcher procMatcher = processPattern.matcher(content);
-
-        while (procMatcher.find()) {
-            String procAttrs = procMatcher.group(1).trim();
-            String procBody = procMatcher.group(2);
+        // Locate all process blocks in one pre-scan
+        List<String[]> blocks = new ArrayList<>();
+        for (TagScanner.Tag tag : TagScanner.scan(content, "process")) {
+            if (tag.isClosed()) {
+                blocks.add(new String[] { tag.attrs.trim(), tag.body });
+            }
+        }
 
-            String procId = extractAttr(procAttrs, "id");
-            String procName = extractAttr(procAttrs, "name");
+        if (blocks.size() < 2 || !parallel) {
+            for (int i = 0; i < blocks.size(); i++) {
+                data.getProcesses().add(parseProcess(i, blocks.get(i), ids, trace));
+            }
+            data.getShapes().addAll(parseShapes(content, ids, trace));
+            ids.resolveCollisions(data);
+            return data;
+        }
 
-            BpmnProcess proc = new BpmnProcess(
-                    procId != null ? procId : "Process_" + shortUuid(),
-                    procName != null ? procName : "Process_Name");
+        // Collaboration with several pools: parse process bodies in parallel on
+        // the fork-join pool while the shapes are extracted alongside. The
+        // ordered stream keeps the processes in document order. CPU time and
+        // allocation on the pool threads are charged to the trace.
+        Thread owner = Thread.currentThread();
+        CompletableFuture<List<BpmnShape>> shapes = CompletableFuture.supplyAsync(
+                () -> ThreadUsage.charge(trace, owner, () -> parseShapes(content, ids, trace)),
+                ForkJoinPool.commonPool());
+        data.getProcesses().addAll(IntStream.range(0, blocks.size()).parallel()
+                .mapToObj(i -> ThreadUsage.charge(trace, owner, () -> parseProcess(i, blocks.get(i), ids, trace)))
+                .collect(Collectors.toList()));
+        data.getShapes().addAll(shapes.join());
+        ids.resolveCollisions(data);
 
-            // Parse standard flow nodes
-            for (String tagName : FLOW_NODE_TAGS) {
-                parseNodes(proc, procBody, tagName, tagName, false);
-            }
+        return data;
+    }
 
-            // Parse custom/non-standard tags
-            Set<String> existingIds = new HashSet<>();
-            for (BpmnElement e : proc.getElements()) {
-                existingIds.add(e.getId());
-            }
-            for (Map.Entry<String, CustomTagMapping> entry : CUSTOM_TAG_MAP.entrySet()) {
-                String customTag = entry.getKey();
-                CustomTagMapping mapping = entry.getValue();
-                parseCustomNodes(proc, procBody, customTag, mapping.getMappedType(),
-                        mapping.isMultiInstance(), existingIds);
-            }
+    /**
+     * Parse the flow nodes and sequence flows of a single process block.
+     */
+    private BpmnProcess parseProcess(int index, String[] block, IdGenerator ids, ConversionTrace trace) {
+        String procAttrs = block[0];
+        String procBody = block[1];
+        String procId = extractAttr(procAttrs, "id");
+        String procName = extractAttr(procAttrs, "name");
+
+        BpmnProcess proc = new BpmnProcess(procId, procName != null ? procName : "Process_Name");
+        if (procId == null) {
+            proc.setId(ids.generate(proc, "Process", String.valueOf(index), procAttrs));
+        }
 
-            // Parse sequence flows
-            parseFlows(proc, procBody);
+        // Parse standard flow nodes
+        for (String tagName : FLOW_NODE_TAGS) {
+            ConversionTrace.Phase phase = trace.beginParse(tagName, index);
+            int before = proc.getElements().size();
+            parseNodes(proc, procBody, tagName, tagName, false);
+            phase.end(proc.getElements().size() - before, -1);
+        }
 
-            data.getProcesses().add(proc);
+        // Parse custom/non-standard tags
+        Set<String> existingIds = new HashSet<>();
+        for (BpmnElement e : proc.getElements()) {
+            existingIds.add(e.getId());
+        }
+        for (Map.Entry<String, CustomTagMapping> entry : CUSTOM_TAG_MAP.entrySet()) {
+            String customTag = entry.getKey();
+            CustomTagMapping mapping = entry.getValue();
+            ConversionTrace.Phase phase = trace.beginParse(customTag, index);
+            int before = proc.getElements().size();
+            parseCustomNodes(proc, procBody, customTag, mapping.getMappedType(),
+                    mapping.isMultiInstance(), existingIds);
+            phase.end(proc.getElements().size() - before, -1);
         }
 
-        // Extract Shapes
-        parseShapes(data, content);
+        // Parse sequence flows
+        ConversionTrace.Phase phase = trace.beginParse("sequenceFlow", index);
+        parseFlows(proc, procBody, index, ids);
+        phase.end(proc.getFlows().size(), -1);
 
-        return data;
+        return proc;
     }
 
     /**
@@ -136,39 +390,36 @@ public class BpmnConvertService {
      */
     private void parseNodes(BpmnProcess proc, String procBody,
             String tagName, String mappedType, boolean isMultiInstance) {
+        List<TagScanner.Tag> tags = TagScanner.scan(procBody, tagName);
+
         // Block elements: <tagName ...>...</tagName>
-        Pattern blockPattern = Pattern.compile(
-                "<(?:\\w+:)?" + tagName + "\\b([^>]*)>(.*?)</(?:\\w+:)?" + tagName + ">",
-                Pattern.DOTALL);
-        Matcher blockMatcher = blockPattern.matcher(procBody);
-        while (blockMatcher.find()) {
-            String attrs = blockMatcher.group(1);
-            String body = blockMatcher.group(2);
-            if (attrs.trim().endsWith("/"))
+        for (TagScanner.Tag tag : tags) {
+            if (tag.selfClosing || !tag.isClosed())
                 continue;
 
+            String attrs = tag.attrs;
+            String body = tag.body;
             String id = extractAttr(attrs, "id");
             if (id == null || id.isEmpty())
                 continue;
 
             BpmnElement elem = new BpmnElement(mappedType, id,
                     optional(extractAttr(attrs, "name")));
-            elem.setIncoming(findAll("<(?:\\w+:)?incoming>(.*?)</(?:\\w+:)?incoming>", body));
-            elem.setOutgoing(findAll("<(?:\\w+:)?outgoing>(.*?)</(?:\\w+:)?outgoing>", body));
+            elem.setIncoming(findAll(INCOMING, body));
+            elem.setOutgoing(findAll(OUTGOING, body));
             elem.setMultiInstance(isMultiInstance);
             proc.getElements().add(elem);
         }
 
         // Self-closing: <tagName ... />
-        Pattern scPattern = Pattern.compile(
-                "<(?:\\w+:)?" + tagName + "\\b([^>]*)/>", Pattern.DOTALL);
-        Matcher scMatcher = scPattern.matcher(procBody);
         Set<String> existingIds = new HashSet<>();
         for (BpmnElement e : proc.getElements()) {
             existingIds.add(e.getId());
         }
-        while (scMatcher.find()) {
-            String attrs = scMatcher.group(1);
+        for (TagScanner.Tag tag : tags) {
+            if (!tag.selfClosing)
+                continue;
+            String attrs = tag.attrs;
             String id = extractAttr(attrs, "id");
             if (id != null && !id.isEmpty() && !existingIds.contains(id)) {
                 BpmnElement elem = new BpmnElement(mappedType, id,
@@ -186,19 +437,17 @@ public class BpmnConvertService {
     private void parseCustomNodes(BpmnProcess proc, String procBody,
             String customTag, String mappedType,
             boolean isMultiInstance, Set<String> existingIds) {
-        Pattern pattern = Pattern.compile(
-                "<(?:\\w+:)?" + customTag + "\\b([^>]*)>(.*?)</(?:\\w+:)?" + customTag + ">",
-                Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(procBody);
-        while (matcher.find()) {
-            String attrs = matcher.group(1);
-            String body = matcher.group(2);
+        for (TagScanner.Tag tag : TagScanner.scan(procBody, customTag)) {
+            if (tag.selfClosing || !tag.isClosed())
+                continue;
+            String attrs = tag.attrs;
+            String body = tag.body;
             String id = extractAttr(attrs, "id");
             if (id != null && !id.isEmpty() && !existingIds.contains(id)) {
                 BpmnElement elem = new BpmnElement(mappedType, id,
                         optional(extractAttr(attrs, "name")));
-                elem.setIncoming(findAll("<(?:\\w+:)?incoming>(.*?)</(?:\\w+:)?incoming>", body));
-                elem.setOutgoing(findAll("<(?:\\w+:)?outgoing>(.*?)</(?:\\w+:)?outgoing>", body));
+                elem.setIncoming(findAll(INCOMING, body));
+                elem.setOutgoing(findAll(OUTGOING, body));
                 elem.setMultiInstance(isMultiInstance);
                 proc.getElements().add(elem);
                 existingIds.add(id);
@@ -209,26 +458,23 @@ public class BpmnConvertService {
     /**
      * Parse sequence flows from a process body.
      */
-    private void parseFlows(BpmnProcess proc, String procBody) {
-        Pattern flowPattern = Pattern.compile(
-                "<(?:\\w+:)?sequenceFlow\\b([^>]*)(?:>(.*?)</(?:\\w+:)?sequenceFlow>|/>)",
-                Pattern.DOTALL);
-        Matcher flowMatcher = flowPattern.matcher(procBody);
-        while (flowMatcher.find()) {
-            String attrs = flowMatcher.group(1);
-            String body = flowMatcher.group(2) != null ? flowMatcher.group(2) : "";
+    private void parseFlows(BpmnProcess proc, String procBody, int procIndex, IdGenerator ids) {
+        for (TagScanner.Tag tag : TagScanner.scan(procBody, "sequenceFlow")) {
+            if (!tag.isClosed())
+                continue;
+            String attrs = tag.attrs;
+            String body = tag.body;
 
             BpmnFlow flow = new BpmnFlow();
             String fid = extractAttr(attrs, "id");
-            flow.setId(fid != null ? fid : "Flow_" + shortUuid());
+            flow.setId(fid != null ? fid
+                    : ids.generate(flow, "Flow", procIndex + ":" + tag.start, attrs));
             flow.setSourceRef(optional(extractAttr(attrs, "sourceRef")));
             flow.setTargetRef(optional(extractAttr(attrs, "targetRef")));
             flow.setName(optional(extractAttr(attrs, "name")));
 
             // Parse condition expression
-            Matcher condMatcher = Pattern.compile(
-                    "<(?:\\w+:)?conditionExpression[^>]*>(.*?)</(?:\\w+:)?conditionExpression>",
-                    Pattern.DOTALL).matcher(body);
+            Matcher condMatcher = CONDITION.matcher(body);
             if (condMatcher.find()) {
                 flow.setCondition(condMatcher.group(1).trim());
             }
@@ -242,58 +488,53 @@ public class BpmnConvertService {
     /**
      * Parse BPMNShape elements from the full content.
      */
-    private void parseShapes(BpmnData data, String content) {
-        Pattern shapePattern = Pattern.compile(
-                "<(?:\\w+:)?BPMNShape\\b([^>]*)>.*?\\b(?:\\w+:)?Bounds\\b([^>]*)/?>", Pattern.DOTALL);
-        Matcher shapeMatcher = shapePattern.matcher(content);
-        while (shapeMatcher.find()) {
-            String sAttrs = shapeMatcher.group(1);
-            String bAttrs = shapeMatcher.group(2);
+    private List<BpmnShape> parseShapes(CharSequence content, IdGenerator ids, ConversionTrace trace) {
+        ConversionTrace.Phase phase = trace.beginParse("BPMNShape", -1);
+        List<BpmnShape> shapes = new ArrayList<>();
+        for (TagScanner.Tag tag : TagScanner.scanFlat(content, "BPMNShape")) {
+            // Bounds must belong to this shape: a shape without them no longer
+            // borrows the next shape's (or an edge label's) bounds
+            Matcher boundsMatcher = tag.isClosed() ? BOUNDS.matcher(tag.body) : null;
+            if (boundsMatcher == null || !boundsMatcher.find())
+                continue;
+            String sAttrs = tag.attrs;
+            String bAttrs = boundsMatcher.group(1);
 
             BpmnShape shape = new BpmnShape();
             String bpmnElement = extractAttr(sAttrs, "bpmnElement");
             shape.setBpmnElement(bpmnElement != null ? bpmnElement : "");
             String sid = extractAttr(sAttrs, "id");
-            shape.setId(sid != null ? sid : "Shape_" + shortUuid());
+            shape.setId(sid != null ? sid
+                    : ids.generate(shape, "Shape", String.valueOf(tag.start), sAttrs));
             shape.setX(extractIntAttr(bAttrs, "x"));
             shape.setY(extractIntAttr(bAttrs, "y"));
             shape.setWidth(extractIntAttr(bAttrs, "width"));
             shape.setHeight(extractIntAttr(bAttrs, "height"));
 
             if (!shape.getBpmnElement().isEmpty()) {
-                data.getShapes().add(shape);
+                shapes.add(shape);
             }
         }
+        phase.end(shapes.size(), -1);
+        return shapes;
     }
 
     // =====================================================================
-    // XML Building
+    // Layout (shared by the XML and graph outputs)
     // =====================================================================
 
-    private String buildBpmn(BpmnData data) {
-        List<String> lines = new ArrayList<>();
-        lines.add("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-        lines.add("<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" " +
-                "xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\" " +
-                "xmlns:dc=\"http://www.omg.org/spec/DD/20100524/DC\" " +
-                "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" " +
-                "xmlns:zeebe=\"http://camunda.org/schema/zeebe/1.0\" " +
-                "xmlns:di=\"http://www.omg.org/spec/DD/20100524/DI\" " +
-                "xmlns:modeler=\"http://camunda.org/schema/modeler/1.0\" " +
-                "id=\"Definitions_1\" targetNamespace=\"http://bpmn.io/schema/bpmn\" " +
-                "exporter=\"Camunda Modeler\" exporterVersion=\"5.42.0\" " +
-                "modeler:executionPlatform=\"Camunda Cloud\" " +
-                "modeler:executionPlatformVersion=\"8.8.0\">");
-
-        // Build shape map & gateway set
+    /**
+     * One shape per element, in element order, with its bounds merged from the
+     * parsed diagram (default sizes filled in, centre coordinates moved to the
+     * top-left corner) and shifted so the diagram starts at (100, 100).
+     */
+    Map<String, ShapeInfo> layoutShapes(BpmnData data, ConversionTrace trace) {
+        // Build shape map
+        ConversionTrace.Phase phase = trace.begin(ConversionTrace.SHAPE_MERGE);
         Map<String, ShapeInfo> shapeMap = new LinkedHashMap<>();
-        Set<String> gateways = new HashSet<>();
 
         for (BpmnProcess proc : data.getProcesses()) {
             for (BpmnElement e : proc.getElements()) {
-                if (e.getType().contains("Gateway")) {
-                    gateways.add(e.getId());
-                }
                 shapeMap.put(e.getId(), new ShapeInfo(e.getType()));
             }
         }
@@ -329,6 +570,9 @@ public class BpmnConvertService {
             si.setH(h);
         }
 
+        phase.end();
+        phase = trace.begin(ConversionTrace.OFFSET_NORMALISATION);
+
         // Calc coordinate offset
         double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
         boolean hasX = false, hasY = false;
@@ -351,6 +595,112 @@ public class BpmnConvertService {
                 si.setY(si.getYRaw() + offY);
             }
         }
+        phase.end();
+        return shapeMap;
+    }
+
+    private static Set<String> gatewayIds(BpmnData data) {
+        Set<String> gateways = new HashSet<>();
+        for (BpmnProcess proc : data.getProcesses()) {
+            for (BpmnElement e : proc.getElements()) {
+                if (e.getType().contains("Gateway")) {
+                    gateways.add(e.getId());
+                }
+            }
+        }
+        return gateways;
+    }
+
+    /**
+     * The FEEL condition of {@code f} with its leading {@code =}, or null;
+     * conditions are kept on flows leaving a gateway only.
+     */
+    private static String conditionExpression(BpmnFlow f, Set<String> gateways) {
+        if (f.getCondition() == null || f.getCondition().isEmpty() || !gateways.contains(f.getSourceRef())) {
+            return null;
+        }
+        return f.getCondition().startsWith("=") ? f.getCondition() : "=" + f.getCondition();
+    }
+
+    /**
+     * Waypoints of the edge from {@code src} to {@code tgt}, mirroring the
+     * Python edge-routing logic: leave and enter through the faces pointing at
+     * each other, with one or two orthogonal bends.
+     */
+    private List<double[]> routeEdge(ShapeInfo src, ShapeInfo tgt, ConversionTrace trace) {
+        long start = System.nanoTime();
+        double scx = src.getX() + src.getW() / 2;
+        double scy = src.getY() + src.getH() / 2;
+        double tcx = tgt.getX() + tgt.getW() / 2;
+        double tcy = tgt.getY() + tgt.getH() / 2;
+
+        double dx = tcx - scx;
+        double dy = tcy - scy;
+
+        String srcFace, tgtFace;
+        if (Math.abs(dx) >= Math.abs(dy)) {
+            srcFace = dx >= 0 ? "RIGHT" : "LEFT";
+            tgtFace = dx >= 0 ? "LEFT" : "RIGHT";
+        } else {
+            srcFace = dy >= 0 ? "BOTTOM" : "TOP";
+            tgtFace = dy >= 0 ? "TOP" : "BOTTOM";
+        }
+
+        double[] p1 = getPoint(src, srcFace);
+        double[] p2 = getPoint(tgt, tgtFace);
+
+        List<double[]> pts = new ArrayList<>();
+        pts.add(p1);
+
+        boolean srcHorizontal = srcFace.equals("LEFT") || srcFace.equals("RIGHT");
+        boolean tgtHorizontal = tgtFace.equals("LEFT") || tgtFace.equals("RIGHT");
+
+        if (srcHorizontal && tgtHorizontal) {
+            if (Math.abs(p1[1] - p2[1]) > 10) {
+                double midX = (p1[0] + p2[0]) / 2;
+                pts.add(new double[] { midX, p1[1] });
+                pts.add(new double[] { midX, p2[1] });
+            }
+        } else if (!srcHorizontal && !tgtHorizontal) {
+            if (Math.abs(p1[0] - p2[0]) > 10) {
+                double midY = (p1[1] + p2[1]) / 2;
+                pts.add(new double[] { p1[0], midY });
+                pts.add(new double[] { p2[0], midY });
+            }
+        } else {
+            if (srcHorizontal) {
+                pts.add(new double[] { p2[0], p1[1] });
+            } else {
+                pts.add(new double[] { p1[0], p2[1] });
+            }
+        }
+        pts.add(p2);
+        trace.end(ConversionTrace.EDGE_ROUTING, start);
+        return pts;
+    }
+
+    // =====================================================================
+    // XML Building
+    // =====================================================================
+
+    void buildBpmn(BpmnData data, XmlOutput lines, ConversionTrace trace) {
+        ConversionTrace.Phase serialisation = trace.begin(ConversionTrace.SERIALISATION);
+        long start = System.nanoTime();
+        lines.add("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        lines.add("<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" " +
+                "xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\" " +
+                "xmlns:dc=\"http://www.omg.org/spec/DD/20100524/DC\" " +
+                "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" " +
+                "xmlns:zeebe=\"http://camunda.org/schema/zeebe/1.0\" " +
+                "xmlns:di=\"http://www.omg.org/spec/DD/20100524/DI\" " +
+                "xmlns:modeler=\"http://camunda.org/schema/modeler/1.0\" " +
+                "id=\"Definitions_1\" targetNamespace=\"http://bpmn.io/schema/bpmn\" " +
+                "exporter=\"Camunda Modeler\" exporterVersion=\"5.42.0\" " +
+                "modeler:executionPlatform=\"Camunda Cloud\" " +
+                "modeler:executionPlatformVersion=\"8.8.0\">");
+
+        Map<String, ShapeInfo> shapeMap = layoutShapes(data, trace);
+        Set<String> gateways = gatewayIds(data);
 
         // ── Process elements ────────────────────────────────────────────────
         for (BpmnProcess proc : data.getProcesses()) {
@@ -382,11 +732,8 @@ public class BpmnConvertService {
                 lines.add("    <bpmn:sequenceFlow id=\"" + esc(f.getId()) +
                         "\" sourceRef=\"" + esc(f.getSourceRef()) +
                         "\" targetRef=\"" + esc(f.getTargetRef()) + "\"" + nAttr + ">");
-                if (f.getCondition() != null && !f.getCondition().isEmpty()
-                        && gateways.contains(f.getSourceRef())) {
-                    String cond = f.getCondition().startsWith("=")
-                            ? f.getCondition()
-                            : "=" + f.getCondition();
+                String cond = conditionExpression(f, gateways);
+                if (cond != null) {
                     lines.add("      <bpmn:conditionExpression xsi:type=\"bpmn:tFormalExpression\">" +
                             esc(cond) + "</bpmn:conditionExpression>");
                 }
@@ -416,6 +763,7 @@ public class BpmnConvertService {
             }
 
             // ── Edges ───────────────────────────────────────────────────────
+            ConversionTrace.Phase routing = trace.begin(ConversionTrace.EDGE_ROUTING);
             for (BpmnProcess proc : data.getProcesses()) {
                 for (BpmnFlow f : proc.getFlows()) {
                     ShapeInfo src = shapeMap.get(f.getSourceRef());
@@ -423,68 +771,28 @@ public class BpmnConvertService {
                     if (src == null || tgt == null || !src.hasCoordinates() || !tgt.hasCoordinates()) {
                         continue;
                     }
-                    buildEdge(lines, f, src, tgt);
+                    buildEdge(lines, f, src, tgt, trace);
                 }
             }
+            routing.emit(trace.getNanos(ConversionTrace.EDGE_ROUTING), lines.length());
             lines.add("    </bpmndi:BPMNPlane>");
             lines.add("  </bpmndi:BPMNDiagram>");
         }
 
         lines.add("</bpmn:definitions>");
-        return String.join("\n", lines);
+
+        long layout = trace.getNanos(ConversionTrace.SHAPE_MERGE) + trace.getNanos(ConversionTrace.OFFSET_NORMALISATION)
+                + trace.getNanos(ConversionTrace.EDGE_ROUTING);
+        long serialisationNanos = System.nanoTime() - start - layout;
+        trace.add(ConversionTrace.SERIALISATION, serialisationNanos);
+        serialisation.emit(serialisationNanos, lines.length());
     }
 
     /**
-     * Build a BPMNEdge element with waypoints, mirroring the Python edge-routing
-     * logic.
+     * Build a BPMNEdge element with its routed waypoints.
      */
-    private void buildEdge(List<String> lines, BpmnFlow f, ShapeInfo src, ShapeInfo tgt) {
-        double scx = src.getX() + src.getW() / 2;
-        double scy = src.getY() + src.getH() / 2;
-        double tcx = tgt.getX() + tgt.getW() / 2;
-        double tcy = tgt.getY() + tgt.getH() / 2;
-
-        double dx = tcx - scx;
-        double dy = tcy - scy;
-
-        String srcFace, tgtFace;
-        if (Math.abs(dx) >= Math.abs(dy)) {
-            srcFace = dx >= 0 ? "RIGHT" : "LEFT";
-            tgtFace = dx >= 0 ? "LEFT" : "RIGHT";
-        } else {
-            srcFace = dy >= 0 ? "BOTTOM" : "TOP";
-            tgtFace = dy >= 0 ? "TOP" : "BOTTOM";
-        }
-
-        double[] p1 = getPoint(src, srcFace);
-        double[] p2 = getPoint(tgt, tgtFace);
-
-        List<double[]> pts = new ArrayList<>();
-        pts.add(p1);
-
-        boolean srcHorizontal = srcFace.equals("LEFT") || srcFace.equals("RIGHT");
-        boolean tgtHorizontal = tgtFace.equals("LEFT") || tgtFace.equals("RIGHT");
-
-        if (srcHorizontal && tgtHorizontal) {
-            if (Math.abs(p1[1] - p2[1]) > 10) {
-                double midX = (p1[0] + p2[0]) / 2;
-                pts.add(new double[] { midX, p1[1] });
-                pts.add(new double[] { midX, p2[1] });
-            }
-        } else if (!srcHorizontal && !tgtHorizontal) {
-            if (Math.abs(p1[0] - p2[0]) > 10) {
-                double midY = (p1[1] + p2[1]) / 2;
-                pts.add(new double[] { p1[0], midY });
-                pts.add(new double[] { p2[0], midY });
-            }
-        } else {
-            if (srcHorizontal) {
-                pts.add(new double[] { p2[0], p1[1] });
-            } else {
-                pts.add(new double[] { p1[0], p2[1] });
-            }
-        }
-        pts.add(p2);
+    private void buildEdge(XmlOutput lines, BpmnFlow f, ShapeInfo src, ShapeInfo tgt, ConversionTrace trace) {
+        List<double[]> pts = routeEdge(src, tgt, trace);
 
         lines.add("      <bpmndi:BPMNEdge id=\"" + esc(f.getId()) +
                 "_di\" bpmnElement=\"" + esc(f.getId()) + "\">");
@@ -510,6 +818,99 @@ public class BpmnConvertService {
         }
     }
 
+    // =====================================================================
+    // Graph Building
+    // =====================================================================
+
+    /**
+     * Write the converted graph with {@code factory} (JSON or CBOR) without
+     * building any XML: per process its elements with their bounds and its
+     * flows with their conditions and waypoints, all taken from the same
+     * layout as the XML output and rounded the same way. Incoming and outgoing
+     * references are left out, as the flows carry them.
+     * <pre>
+     * {"processes":[{"id":..,"name":..,
+     *   "elements":[{"id":..,"type":..,"name":..,"multiInstance":true,"bounds":[x,y,w,h]}],
+     *   "flows":[{"id":..,"source":..,"target":..,"name":..,"condition":"=..","waypoints":[[x,y],..]}]}]}
+     * </pre>
+     * Names, conditions, bounds and waypoints are omitted when absent.
+     */
+    byte[] buildGraph(BpmnData data, JsonFactory factory, ConversionTrace trace) throws IOException {
+        ConversionTrace.Phase serialisation = trace.begin(ConversionTrace.SERIALISATION);
+        long start = System.nanoTime();
+        Map<String, ShapeInfo> shapeMap = layoutShapes(data, trace);
+        Set<String> gateways = gatewayIds(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + 128 * shapeMap.size());
+        // Edges are routed while their flows are written; the routing time is summed per edge
+        ConversionTrace.Phase routing = trace.begin(ConversionTrace.EDGE_ROUTING);
+        try (JsonGenerator g = factory.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeArrayFieldStart("processes");
+            for (BpmnProcess proc : data.getProcesses()) {
+                g.writeStartObject();
+                g.writeStringField("id", proc.getId());
+                writeOptional(g, "name", proc.getName());
+
+                g.writeArrayFieldStart("elements");
+                for (BpmnElement e : proc.getElements()) {
+                    g.writeStartObject();
+                    g.writeStringField("id", e.getId());
+                    g.writeStringField("type", e.getType());
+                    writeOptional(g, "name", e.getName());
+                    if (e.isMultiInstance()) {
+                        g.writeBooleanField("multiInstance", true);
+                    }
+                    ShapeInfo si = shapeMap.get(e.getId());
+                    if (si != null && si.hasCoordinates()) {
+                        g.writeFieldName("bounds");
+                        g.writeArray(new int[] { (int) Math.round(si.getX()), (int) Math.round(si.getY()),
+                                (int) Math.round(si.getW()), (int) Math.round(si.getH()) }, 0, 4);
+                    }
+                    g.writeEndObject();
+                }
+                g.writeEndArray();
+
+                g.writeArrayFieldStart("flows");
+                for (BpmnFlow f : proc.getFlows()) {
+                    g.writeStartObject();
+                    g.writeStringField("id", f.getId());
+                    g.writeStringField("source", f.getSourceRef());
+                    g.writeStringField("target", f.getTargetRef());
+                    writeOptional(g, "name", f.getName());
+                    writeOptional(g, "condition", conditionExpression(f, gateways));
+                    ShapeInfo src = shapeMap.get(f.getSourceRef());
+                    ShapeInfo tgt = shapeMap.get(f.getTargetRef());
+                    if (src != null && tgt != null && src.hasCoordinates() && tgt.hasCoordinates()) {
+                        g.writeArrayFieldStart("waypoints");
+                        for (double[] pt : routeEdge(src, tgt, trace)) {
+                            g.writeArray(new int[] { (int) Math.round(pt[0]), (int) Math.round(pt[1]) }, 0, 2);
+                        }
+                        g.writeEndArray();
+                    }
+                    g.writeEndObject();
+                }
+                g.writeEndArray();
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        routing.emit(trace.getNanos(ConversionTrace.EDGE_ROUTING), out.size());
+
+        long layout = trace.getNanos(ConversionTrace.SHAPE_MERGE) + trace.getNanos(ConversionTrace.OFFSET_NORMALISATION)
+                + trace.getNanos(ConversionTrace.EDGE_ROUTING);
+        long serialisationNanos = System.nanoTime() - start - layout;
+        trace.add(ConversionTrace.SERIALISATION, serialisationNanos);
+        serialisation.emit(serialisationNanos, out.size());
+        return out.toByteArray();
+    }
+
+    private static void writeOptional(JsonGenerator g, String field, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            g.writeStringField(field, value);
+        }
+    }
+
     // =====================================================================
     // Utility helpers
     // =====================================================================
@@ -530,15 +931,27 @@ public class BpmnConvertService {
         }
     }
 
-    private List<String> findAll(String regex, String text) {
+    private List<String> findAll(Pattern pattern, String text) {
         List<String> results = new ArrayList<>();
-        Matcher m = Pattern.compile(regex, Pattern.DOTALL).matcher(text);
+        Matcher m = pattern.matcher(text);
         while (m.find()) {
             results.add(m.group(1));
         }
         return results;
     }
 
+    private static CharSequence readContent(InputStream input, long sizeHint) throws IOException {
+        int capacity = sizeHint > 0 && sizeHint < Integer.MAX_VALUE ? (int) sizeHint : 8192;
+        StringBuilder sb = new StringBuilder(capacity);
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        char[] buf = new char[8192];
+        int n;
+        while ((n = reader.read(buf)) != -1) {
+            sb.append(buf, 0, n);
+        }
+        return sb;
+    }
+
     private String esc(String text) {
         if (text == null)
             return "";
@@ -552,7 +965,17 @@ public class BpmnConvertService {
         return s != null ? s : "";
     }
 
-    private String shortUuid() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, 7);
+    /**
+     * True if {@code e} is, or wraps (e.g. from the parallel parser), a
+     * cancellation requested through {@link InFlightConversions} or caused by
+     * a passed {@link ConversionOptions#getDeadlineNanos() deadline}.
+     */
+    private static boolean isCancellation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
     }
 }
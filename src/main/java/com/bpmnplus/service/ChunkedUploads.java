@@ -0,0 +1,459 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.config.AdmissionProperties;
+import com.bpmnplus.config.UploadProperties;
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable chunked uploads for exports too large or links too flaky for a
+ * single multipart request. An upload is initiated with its total size, which
+ * fixes the number of chunks; each chunk is then PUT with its SHA-256 and
+ * written at its own offset of one spool file, so chunks may arrive in any
+ * order and a failed chunk is simply sent again. As soon as the last missing
+ * chunk is stored the spool file is closed and converted on the bulk or fast
+ * lane ({@link ConversionScheduler}) through memory-mapped reads.
+ * The conversion decodes the whole file onto the heap, so it takes a
+ * {@link ConversionAdmission} permit for the file size first, like a
+ * {@code /convert} request, and {@code bpmn.upload.max-file-size} is capped at
+ * the admission byte budget. If no permit is free when the last chunk
+ * arrives, conversion starts at {@code complete} instead, which answers 429
+ * while the service stays saturated.
+ * Uploads live in memory: after a restart clients start over, and leftover
+ * spool files are removed at startup.
+ */
+@Service
+@ConditionalOnProperty(prefix = "bpmn.upload", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ChunkedUploads {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploads.class);
+
+    private static final String SUFFIX = ".upload";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Why a request against an upload was refused.
+     */
+    public enum Failure {
+        NOT_FOUND, INVALID, CONFLICT, CHECKSUM_MISMATCH, SATURATED
+    }
+
+    /**
+     * A refused request; {@link #getFailure()} tells the controller which
+     * status to answer with.
+     */
+    public static class UploadException extends RuntimeException {
+
+        private final Failure failure;
+
+        public UploadException(Failure failure, String message) {
+            super(message);
+            this.failure = failure;
+        }
+
+        public Failure getFailure() {
+            return failure;
+        }
+    }
+
+    private final ConversionScheduler scheduler;
+    private final ConversionAdmission admission;
+    private final AdmissionProperties admissionProperties;
+    private final UploadProperties properties;
+    private final Path spoolDir;
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    public ChunkedUploads(ConversionScheduler scheduler, ConversionAdmission admission,
+            AdmissionProperties admissionProperties, UploadProperties properties) {
+        this.scheduler = scheduler;
+        this.admission = admission;
+        this.admissionProperties = admissionProperties;
+        this.properties = properties;
+        this.spoolDir = Paths.get(properties.getSpoolDir());
+        // The directory itself is only created by the first upload, so CLI runs leave no trace
+        if (Files.isDirectory(spoolDir)) {
+            try (DirectoryStream<Path> stale = Files.newDirectoryStream(spoolDir, "*" + SUFFIX)) {
+                for (Path file : stale) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot clean upload directory " + spoolDir, e);
+            }
+        }
+    }
+
+    /**
+     * Start an upload of {@code size} bytes in chunks of {@code chunkSize}
+     * bytes (0 for the configured default; larger requests are capped to it).
+     * The per-chunk state is sized by the chunk count, so chunks smaller than
+     * {@code bpmn.upload.min-chunk-size} (unless the whole file is smaller)
+     * and uploads of more than {@code bpmn.upload.max-chunks} chunks are
+     * refused before anything is allocated.
+     */
+    public Upload initiate(String filename, long size, long chunkSize, ConversionOptions options)
+            throws IOException {
+        expire();
+        if (filename == null || filename.isBlank()) {
+            throw new UploadException(Failure.INVALID, "filename is required");
+        }
+        long maxFileSize = maxFileSize();
+        if (size <= 0 || size > maxFileSize) {
+            throw new UploadException(Failure.INVALID, "size must be between 1 and " + maxFileSize + " bytes");
+        }
+        long maxChunk = properties.getChunkSize().toBytes();
+        long chunk = chunkSize > 0 ? Math.min(chunkSize, maxChunk) : maxChunk;
+        long minChunk = Math.min(properties.getMinChunkSize().toBytes(), size);
+        if (chunk < minChunk) {
+            throw new UploadException(Failure.INVALID, "chunkSize must be at least " + minChunk + " bytes");
+        }
+        long chunks = (size + chunk - 1) / chunk;
+        if (chunks > properties.getMaxChunks()) {
+            throw new UploadException(Failure.INVALID,
+                    size + " bytes need " + chunks + " chunks of " + chunk + " bytes, at most "
+                            + properties.getMaxChunks() + " are allowed");
+        }
+        if (uploads.size() >= properties.getMaxOpenUploads()) {
+            throw new UploadException(Failure.SATURATED, "Too many open uploads, retry later");
+        }
+        Files.createDirectories(spoolDir);
+        String id = UUID.randomUUID().toString();
+        Path file = spoolDir.resolve(id + SUFFIX);
+        Upload upload = new Upload(id, filename, size, chunk, file, options);
+        uploads.put(id, upload);
+        log.info("Upload {} of {} started: {} bytes in {} chunk(s)", id, filename, size, upload.chunks);
+        return upload;
+    }
+
+    /**
+     * Store chunk {@code index}, read from {@code body}, if it has the expected
+     * length and SHA-256. A chunk that is already stored, or being stored by
+     * another request, is refused, so the conversion never reads bytes that
+     * are being rewritten. When this was the last missing chunk, conversion
+     * starts.
+     */
+    public Upload putChunk(String id, int index, InputStream body, String sha256) throws IOException {
+        Upload upload = get(id);
+        if (index < 0 || index >= upload.chunks) {
+            throw new UploadException(Failure.INVALID, "chunk index must be between 0 and " + (upload.chunks - 1));
+        }
+        if (sha256 == null || sha256.isBlank()) {
+            throw new UploadException(Failure.INVALID, "chunk SHA-256 is required");
+        }
+        long offset = index * upload.chunkSize;
+        long expected = Math.min(upload.chunkSize, upload.size - offset);
+        upload.claim(index);
+        String actual;
+        try {
+            actual = store(upload, index, offset, expected, body, sha256.trim());
+        } catch (UploadException | IOException e) {
+            // Not stored; the client sends it again
+            upload.unclaim(index);
+            throw e;
+        }
+        upload.received(index, actual);
+        return upload;
+    }
+
+    private static String store(Upload upload, int index, long offset, long expected, InputStream body,
+            String sha256) throws IOException {
+        MessageDigest digest = sha256();
+        long written = 0;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        for (int n; (n = body.read(buffer)) >= 0;) {
+            if (written + n > expected) {
+                throw new UploadException(Failure.INVALID, "chunk " + index + " is longer than " + expected + " bytes");
+            }
+            digest.update(buffer, 0, n);
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, n);
+            while (bytes.hasRemaining()) {
+                written += upload.channel().write(bytes, offset + written);
+            }
+        }
+        if (written != expected) {
+            throw new UploadException(Failure.INVALID,
+                    "chunk " + index + " has " + written + " bytes, expected " + expected);
+        }
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (!actual.equalsIgnoreCase(sha256)) {
+            throw new UploadException(Failure.CHECKSUM_MISMATCH,
+                    "chunk " + index + " SHA-256 is " + actual + ", expected " + sha256);
+        }
+        return actual;
+    }
+
+    /**
+     * The conversion of a fully received upload, started here if admission
+     * refused it when the last chunk arrived. The upload is forgotten and its
+     * spool file deleted once the conversion has finished.
+     */
+    public CompletableFuture<ConversionOutcome> complete(String id) throws IOException {
+        Upload upload = get(id);
+        List<Integer> missing = upload.missing();
+        if (!missing.isEmpty()) {
+            throw new UploadException(Failure.CONFLICT, missing.size() + " chunk(s) missing: " + missing);
+        }
+        if (!upload.startConversion()) {
+            throw new UploadException(Failure.SATURATED, "Too many conversions in progress, retry later");
+        }
+        return upload.conversion.whenComplete((outcome, e) -> discard(upload));
+    }
+
+    public long getRetryAfterSeconds() {
+        return admission.getRetryAfterSeconds();
+    }
+
+    public Upload get(String id) {
+        Upload upload = uploads.get(id);
+        if (upload == null) {
+            throw new UploadException(Failure.NOT_FOUND, "unknown upload " + id);
+        }
+        upload.touched = System.nanoTime();
+        return upload;
+    }
+
+    /**
+     * Abandon an upload and delete what was received.
+     */
+    public void abort(String id) {
+        discard(get(id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploads.values().forEach(this::discard);
+    }
+
+    /**
+     * The configured maximum, capped at the admission byte budget.
+     */
+    private long maxFileSize() {
+        long max = properties.getMaxFileSize().toBytes();
+        return admissionProperties.isEnabled() ? Math.min(max, admissionProperties.getMaxInFlightBytes()) : max;
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        long expiry = properties.getExpiry().toNanos();
+        for (Upload upload : uploads.values()) {
+            // Converted uploads whose result was never collected expire as well
+            if (now - upload.touched > expiry && (upload.conversion == null || upload.conversion.isDone())) {
+                log.info("Upload {} of {} expired with {} chunk(s) missing", upload.id, upload.filename,
+                        upload.missing().size());
+                discard(upload);
+            }
+        }
+    }
+
+    private void discard(Upload upload) {
+        if (uploads.remove(upload.id, upload)) {
+            upload.closeChannel();
+            try {
+                Files.deleteIfExists(upload.file);
+            } catch (IOException e) {
+                log.warn("Cannot delete upload spool file {}: {}", upload.file, e.getMessage());
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * One upload in progress.
+     */
+    public final class Upload {
+
+        private final String id;
+        private final String filename;
+        private final long size;
+        private final long chunkSize;
+        private final int chunks;
+        private final Path file;
+        private final ConversionOptions options;
+        private final BitSet received;
+        // Chunks whose bytes a request is writing right now
+        private final BitSet writing;
+        // SHA-256 of each stored chunk by index, filled as chunks arrive
+        private final Map<Integer, String> checksums = new HashMap<>();
+        // Held while admitting and submitting the conversion, so it starts once
+        private final Object starting = new Object();
+        private FileChannel channel;
+        private volatile long touched = System.nanoTime();
+        private volatile CompletableFuture<ConversionOutcome> conversion;
+
+        private Upload(String id, String filename, long size, long chunkSize, Path file, ConversionOptions options)
+                throws IOException {
+            this.id = id;
+            this.filename = filename;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunks = (int) ((size + chunkSize - 1) / chunkSize);
+            this.file = file;
+            this.options = options;
+            this.received = new BitSet(chunks);
+            this.writing = new BitSet(chunks);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public ConversionOptions getOptions() {
+            return options;
+        }
+
+        private synchronized FileChannel channel() {
+            if (channel == null) {
+                throw new UploadException(Failure.CONFLICT, "upload " + id + " is already complete");
+            }
+            return channel;
+        }
+
+        private synchronized void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("Cannot close upload spool file {}: {}", file, e.getMessage());
+                }
+                channel = null;
+            }
+        }
+
+        private synchronized void claim(int index) {
+            if (channel == null) {
+                throw new UploadException(Failure.CONFLICT, "upload " + id + " is already complete");
+            }
+            if (received.get(index)) {
+                throw new UploadException(Failure.CONFLICT, "chunk " + index + " is already stored");
+            }
+            if (writing.get(index)) {
+                throw new UploadException(Failure.CONFLICT, "chunk " + index + " is being stored");
+            }
+            writing.set(index);
+        }
+
+        private synchronized void unclaim(int index) {
+            writing.clear(index);
+        }
+
+        private void received(int index, String sha256) throws IOException {
+            synchronized (this) {
+                writing.clear(index);
+                if (channel == null) {
+                    throw new UploadException(Failure.CONFLICT, "upload " + id + " is already complete");
+                }
+                received.set(index);
+                checksums.put(index, sha256);
+                if (received.cardinality() < chunks) {
+                    return;
+                }
+                closeChannel();
+            }
+            if (!startConversion()) {
+                log.info("Upload {} of {} complete, conversion deferred: capacity saturated", id, filename);
+            }
+        }
+
+        /**
+         * Submit the conversion once admitted, unless it was already started.
+         * Returns false if admission refused it.
+         */
+        private boolean startConversion() throws IOException {
+            synchronized (starting) {
+                if (conversion != null) {
+                    return true;
+                }
+                ConversionAdmission.Permit permit = admissionProperties.isEnabled() ? acquire() : null;
+                if (permit == null && admissionProperties.isEnabled()) {
+                    return false;
+                }
+                log.info("Upload {} of {} complete, converting", id, filename);
+                try {
+                    conversion = scheduler.submit(file, filename, options).whenComplete((outcome, e) -> {
+                        if (permit != null) {
+                            permit.close();
+                        }
+                    });
+                } catch (IOException | RuntimeException e) {
+                    if (permit != null) {
+                        permit.close();
+                    }
+                    throw e;
+                }
+                return true;
+            }
+        }
+
+        private ConversionAdmission.Permit acquire() {
+            try {
+                return admission.tryAcquire(size);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        private synchronized List<Integer> missing() {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = received.nextClearBit(0); i < chunks; i = received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+            return missing;
+        }
+
+        /**
+         * Upload state for clients resuming after a failure: which chunks
+         * arrived (with their SHA-256) and which are still missing.
+         */
+        public synchronized Map<String, Object> describe() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", id);
+            m.put("filename", filename);
+            m.put("size", size);
+            m.put("chunkSize", chunkSize);
+            m.put("chunks", chunks);
+            List<Integer> missing = missing();
+            // "uploaded": every chunk is in but admission deferred the conversion to complete
+            m.put("state", conversion != null ? (conversion.isDone() ? "converted" : "converting")
+                    : missing.isEmpty() ? "uploaded" : "uploading");
+            Map<Integer, String> stored = new LinkedHashMap<>();
+            for (int i = received.nextSetBit(0); i >= 0; i = received.nextSetBit(i + 1)) {
+                stored.put(i, checksums.get(i));
+            }
+            m.put("received", stored);
+            m.put("missing", missing);
+            return m;
+        }
+    }
+}
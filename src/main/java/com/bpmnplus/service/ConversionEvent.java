@@ -0,0 +1,41 @@
+package com.bpmnplus.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning a whole conversion; its phases are the
+ * {@link ConversionPhaseEvent}s on the same thread within its duration.
+ */
+@Name("com.bpmnplus.Conversion")
+@Label("BPMN Conversion")
+@Category({ "BPMN+", "Conversion" })
+@StackTrace(false)
+class ConversionEvent extends jdk.jfr.Event {
+
+    @Label("Filename")
+    String filename;
+
+    @Label("Input Length")
+    long inputLength;
+
+    @Label("Output Length")
+    long outputLength;
+
+    @Label("Elements")
+    int elementCount;
+
+    @Label("Flows")
+    int flowCount;
+
+    @Label("Shapes")
+    int shapeCount;
+
+    @Label("Validated")
+    boolean validated;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,14 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+
+/**
+ * Callback invoked by {@link BpmnConvertService} on the converting thread
+ * after each conversion, successful or not. Implementations must be cheap and
+ * must not block; hand heavier work off to their own executor.
+ */
+public interface ConversionListener {
+
+    void onConversion(String filename, CharSequence content, ConversionOptions options, ConversionOutcome outcome);
+}
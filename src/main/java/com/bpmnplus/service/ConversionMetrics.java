@@ -0,0 +1,66 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the cost of every conversion, tagged by input size bucket:
+ * {@code bpmn.conversion.cpu} (CPU time, including the parallel parser's
+ * worker threads) and {@code bpmn.conversion.allocated} (heap bytes).
+ * Comparing buckets shows whether a few large exports account for most of
+ * the allocation and GC pressure.
+ */
+@Service
+public class ConversionMetrics implements ConversionListener {
+
+    /** Upper bounds (exclusive, in characters) of all but the last size bucket. */
+    private static final long[] BUCKET_LIMITS = { 64 * 1024, 1024 * 1024, 10 * 1024 * 1024 };
+    private static final String[] BUCKET_NAMES = { "<64K", "64K-1M", "1M-10M", ">=10M" };
+
+    private final Timer[] cpu = new Timer[BUCKET_NAMES.length];
+    private final DistributionSummary[] allocated = new DistributionSummary[BUCKET_NAMES.length];
+
+    public ConversionMetrics(BpmnConvertService convertService, MeterRegistry registry) {
+        for (int i = 0; i < BUCKET_NAMES.length; i++) {
+            cpu[i] = Timer.builder("bpmn.conversion.cpu")
+                    .description("CPU time spent converting one input")
+                    .tag("size", BUCKET_NAMES[i])
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+            allocated[i] = DistributionSummary.builder("bpmn.conversion.allocated")
+                    .description("Heap bytes allocated converting one input")
+                    .baseUnit("bytes")
+                    .tag("size", BUCKET_NAMES[i])
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+        }
+        convertService.addListener(this);
+    }
+
+    @Override
+    public void onConversion(String filename, CharSequence content, ConversionOptions options,
+            ConversionOutcome outcome) {
+        int bucket = bucketFor(outcome.getInputChars());
+        if (outcome.getCpuMillis() >= 0) {
+            cpu[bucket].record((long) (outcome.getCpuMillis() * 1_000_000), TimeUnit.NANOSECONDS);
+        }
+        if (outcome.getAllocatedBytes() >= 0) {
+            allocated[bucket].record(outcome.getAllocatedBytes());
+        }
+    }
+
+    static int bucketFor(long size) {
+        for (int i = 0; i < BUCKET_LIMITS.length; i++) {
+            if (size < BUCKET_LIMITS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS.length;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bpmnplus.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one phase of a conversion. Parse events are
+ * emitted per process and tag family ({@code userTask}, {@code sequenceFlow},
+ * {@code BPMNShape}, ...); the other phases once per conversion.
+ * Edge routing is interleaved with serialisation, so its event spans the
+ * diagram section and {@link #phaseTime} holds the time actually spent routing.
+ */
+@Name("com.bpmnplus.ConversionPhase")
+@Label("BPMN Conversion Phase")
+@Category({ "BPMN+", "Conversion" })
+@StackTrace(false)
+class ConversionPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Filename")
+    String filename;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Tag Family")
+    String tagFamily;
+
+    @Label("Process Index")
+    int processIndex = -1;
+
+    @Label("Items")
+    @Description("Elements, flows or shapes matched by this parse step")
+    int items;
+
+    @Label("Input Length")
+    @Description("Characters of BPMN input")
+    long inputLength;
+
+    @Label("Output Length")
+    @Description("Characters of XML written so far")
+    long outputLength;
+
+    @Label("Elements")
+    int elementCount;
+
+    @Label("Flows")
+    int flowCount;
+
+    @Label("Shapes")
+    int shapeCount;
+
+    @Label("Phase Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long phaseTime;
+}
@@ -0,0 +1,135 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.config.LaneProperties;
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs conversions on two size-aware lanes so that a few large exports cannot
+ * hold up the small interactive files queued behind them.
+ * Latency (queue wait plus conversion) is recorded per lane as
+ * {@code bpmn.conversion.latency} with p50/p99 percentiles.
+ */
+@Service
+public class ConversionScheduler {
+
+    public enum Lane {
+        FAST, BULK
+    }
+
+    private final BpmnConvertService convertService;
+    private final LaneProperties properties;
+
+    private final ThreadPoolExecutor fastLane;
+    private final ThreadPoolExecutor bulkLane;
+    private final Timer fastTimer;
+    private final Timer bulkTimer;
+
+    public ConversionScheduler(BpmnConvertService convertService, LaneProperties properties,
+            MeterRegistry registry) {
+        this.convertService = convertService;
+        this.properties = properties;
+        this.fastLane = newLane("convert-fast", properties.getFastConcurrency());
+        this.bulkLane = newLane("convert-bulk", properties.getBulkConcurrency());
+        this.fastTimer = laneTimer(registry, Lane.FAST);
+        this.bulkTimer = laneTimer(registry, Lane.BULK);
+
+        registry.gauge("bpmn.conversion.lane.queued", Tags.of("lane", "fast"),
+                fastLane, e -> e.getQueue().size());
+        registry.gauge("bpmn.conversion.lane.queued", Tags.of("lane", "bulk"),
+                bulkLane, e -> e.getQueue().size());
+    }
+
+    /**
+     * Pick the lane for an input of the given size in bytes.
+     */
+    public Lane laneFor(long sizeBytes) {
+        return sizeBytes <= properties.getFastMaxBytes() ? Lane.FAST : Lane.BULK;
+    }
+
+    /**
+     * Queue a conversion on the lane matching its input size. The input is
+     * only opened and read once a lane thread picks the task up, so queued
+     * uploads stay on disk rather than on the heap. The future completes with
+     * the conversion outcome, whose XML is null when conversion failed.
+     */
+    public CompletableFuture<ConversionOutcome> submit(InputStreamSource source, String filename, long sizeBytes,
+            ConversionOptions options) {
+        Lane lane = laneFor(sizeBytes);
+        ThreadPoolExecutor executor = lane == Lane.FAST ? fastLane : bulkLane;
+        Timer timer = lane == Lane.FAST ? fastTimer : bulkTimer;
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = source.getInputStream()) {
+                return convertService.convert(in, sizeBytes, filename, options);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                timer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            }
+        }, executor);
+    }
+
+    /**
+     * Queue a conversion of a file on disk, read through {@link MappedInput}
+     * once a lane thread picks it up.
+     */
+    public CompletableFuture<ConversionOutcome> submit(Path file, String filename, ConversionOptions options)
+            throws IOException {
+        long sizeBytes = Files.size(file);
+        Lane lane = laneFor(sizeBytes);
+        ThreadPoolExecutor executor = lane == Lane.FAST ? fastLane : bulkLane;
+        Timer timer = lane == Lane.FAST ? fastTimer : bulkTimer;
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return convertService.convert(MappedInput.read(file), filename, options);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                timer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            }
+        }, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fastLane.shutdown();
+        bulkLane.shutdown();
+    }
+
+    private static ThreadPoolExecutor newLane(String name, int concurrency) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    private static Timer laneTimer(MeterRegistry registry, Lane lane) {
+        return Timer.builder("bpmn.conversion.latency")
+                .description("Conversion latency including lane queue wait")
+                .tag("lane", lane.name().toLowerCase())
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+}
@@ -0,0 +1,221 @@
+package com.bpmnplus.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Accumulates wall-clock time per conversion phase. Phases may be reported
+ * several times (e.g. edge routing per flow) and from the parallel parser
+ * threads; durations are summed.
+ * Phases opened with {@link #begin(String)} are also emitted as
+ * {@link ConversionPhaseEvent}s when a Flight Recorder recording is running,
+ * and shown as the current phase of a tracked in-flight conversion, which is
+ * also where a requested cancellation or a passed deadline takes effect.
+ */
+public class ConversionTrace {
+
+    public static final String PARSE = "parse";
+    public static final String SHAPE_MERGE = "shapeMerge";
+    public static final String OFFSET_NORMALISATION = "offsetNormalisation";
+    public static final String EDGE_ROUTING = "edgeRouting";
+    public static final String SERIALISATION = "serialisation";
+    public static final String VALIDATION = "validation";
+
+    private final Map<String, Long> nanos = new LinkedHashMap<>();
+    private final String filename;
+    private final long inputLength;
+    private volatile int elementCount;
+    private volatile int flowCount;
+    private volatile int shapeCount;
+    private long workerCpuNanos;
+    private long workerAllocatedBytes;
+    private InFlightConversions.Entry inFlight;
+    private boolean deadlineSet;
+    private long deadlineNanos;
+
+    public ConversionTrace() {
+        this(null, 0);
+    }
+
+    public ConversionTrace(String filename, long inputLength) {
+        this.filename = filename;
+        this.inputLength = inputLength;
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos} against {@code phase}
+     * and return the current {@link System#nanoTime()} for chaining.
+     */
+    public long end(String phase, long startNanos) {
+        checkCancelled();
+        long now = System.nanoTime();
+        add(phase, now - startNanos);
+        return now;
+    }
+
+    public synchronized void add(String phase, long durationNanos) {
+        nanos.merge(phase, durationNanos, Long::sum);
+    }
+
+    public synchronized long getNanos(String phase) {
+        return nanos.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * Phase durations in milliseconds, in the order phases were first seen.
+     */
+    public synchronized Map<String, Double> toMillis() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        nanos.forEach((phase, n) -> result.put(phase, n / 1_000_000.0));
+        return result;
+    }
+
+    /**
+     * Add CPU time and allocation spent on helper threads (the parallel
+     * parser) on behalf of this conversion.
+     */
+    synchronized void addWorkerUsage(long cpuNanos, long allocatedBytes) {
+        workerCpuNanos += cpuNanos;
+        workerAllocatedBytes += allocatedBytes;
+    }
+
+    synchronized long getWorkerCpuNanos() {
+        return workerCpuNanos;
+    }
+
+    synchronized long getWorkerAllocatedBytes() {
+        return workerAllocatedBytes;
+    }
+
+    /**
+     * Report phases of this conversion to, and take cancellation from, an
+     * in-flight registry entry.
+     */
+    void track(InFlightConversions.Entry entry) {
+        this.inFlight = entry;
+    }
+
+    /**
+     * Give up at the first phase boundary or routed edge after
+     * {@link System#nanoTime()} passes {@code nanoTime}.
+     */
+    void deadline(long nanoTime) {
+        this.deadlineNanos = nanoTime;
+        this.deadlineSet = true;
+    }
+
+    private void checkCancelled() {
+        if (inFlight != null && inFlight.cancelled) {
+            throw new CancellationException("Conversion of " + filename + " was cancelled");
+        }
+        if (deadlineSet && System.nanoTime() - deadlineNanos > 0) {
+            throw new CancellationException("Conversion of " + filename + " passed its deadline");
+        }
+    }
+
+    /**
+     * Counts of the parsed document, attached to the events of later phases.
+     */
+    public void setCounts(int elements, int flows, int shapes) {
+        this.elementCount = elements;
+        this.flowCount = flows;
+        this.shapeCount = shapes;
+    }
+
+    /**
+     * Start timing {@code phase} on the current thread.
+     */
+    public Phase begin(String phase) {
+        checkCancelled();
+        return new Phase(phase, null, -1);
+    }
+
+    /**
+     * Start timing the parse of one tag family within a process. Only an
+     * event is emitted; the time is already part of {@link #PARSE}.
+     */
+    public Phase beginParse(String tagFamily, int processIndex) {
+        checkCancelled();
+        return new Phase(PARSE, tagFamily, processIndex);
+    }
+
+    /**
+     * One timed phase. Must be ended on the thread that began it.
+     */
+    public final class Phase {
+
+        private final ConversionPhaseEvent event = new ConversionPhaseEvent();
+        private final String name;
+        private final String tagFamily;
+        private final int processIndex;
+        private final long startNanos;
+        private final String enclosing;
+
+        private Phase(String name, String tagFamily, int processIndex) {
+            this.name = name;
+            this.tagFamily = tagFamily;
+            this.processIndex = processIndex;
+            if (inFlight != null && tagFamily == null) {
+                enclosing = inFlight.phase;
+                inFlight.phase = name;
+            } else {
+                enclosing = null;
+            }
+            event.begin();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * End the phase, adding its elapsed time to the totals unless it is a
+         * tag-family parse step.
+         */
+        public long end() {
+            return end(-1, -1);
+        }
+
+        /**
+         * As {@link #end()}, attaching the number of matched items (parse steps)
+         * or the output length so far (build phases); pass -1 when unknown.
+         */
+        public long end(int items, long outputLength) {
+            long now = System.nanoTime();
+            if (tagFamily == null) {
+                add(name, now - startNanos);
+            }
+            commit(now - startNanos, items, outputLength);
+            return now;
+        }
+
+        /**
+         * Emit the event with {@code accountedNanos} as the phase time, without
+         * touching the totals. Used where a phase is interleaved with another
+         * and its time has been summed separately.
+         */
+        public void emit(long accountedNanos, long outputLength) {
+            commit(accountedNanos, -1, outputLength);
+        }
+
+        private void commit(long phaseNanos, int items, long outputLength) {
+            if (inFlight != null && tagFamily == null) {
+                inFlight.phase = enclosing;
+            }
+            event.end();
+            if (!event.shouldCommit()) {
+                return;
+            }
+            event.filename = filename;
+            event.phase = name;
+            event.tagFamily = tagFamily;
+            event.processIndex = processIndex;
+            event.items = items;
+            event.inputLength = inputLength;
+            event.outputLength = outputLength;
+            event.elementCount = elementCount;
+            event.flowCount = flowCount;
+            event.shapeCount = shapeCount;
+            event.phaseTime = phaseNanos;
+            event.commit();
+        }
+    }
+}
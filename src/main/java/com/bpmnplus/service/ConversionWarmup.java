@@ -0,0 +1,76 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.config.WarmupProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup warm-up: converts a generated corpus in rounds so the regex and
+ * layout code is JIT-compiled before the first real request. Runs as an
+ * application runner, and Spring Boot only switches readiness to
+ * {@code ACCEPTING_TRAFFIC} once all runners have returned, so
+ * {@code /actuator/health/readiness} reports ready only after the warm-up.
+ * Warm-up conversions bypass the conversion listeners and so stay out of the
+ * metrics and slow-conversion captures.
+ */
+@Component
+@ConditionalOnWebApplication
+@ConditionalOnProperty(prefix = "bpmn.warmup", name = "enabled", havingValue = "true")
+public class ConversionWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionWarmup.class);
+
+    private final BpmnConvertService convertService;
+    private final WarmupProperties properties;
+
+    public ConversionWarmup(BpmnConvertService convertService, WarmupProperties properties) {
+        this.convertService = convertService;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Single-process and two-pool documents, so the parallel parser path is compiled too
+        List<String> corpus = new ArrayList<>();
+        for (int size : properties.getSizes()) {
+            corpus.add(WarmupCorpus.diagram(size, 1));
+            corpus.add(WarmupCorpus.diagram(size, 2));
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + properties.getTimeBudget().toNanos();
+        long first = -1;
+        long best = Long.MAX_VALUE;
+        long last = -1;
+        int rounds = 0;
+        int stable = 0;
+        while (stable < properties.getStableRounds() && System.nanoTime() < deadline) {
+            long roundStart = System.nanoTime();
+            for (int i = 0; i < corpus.size(); i++) {
+                if (convertService.convertUnobserved(corpus.get(i), "warmup-" + i + ".bpmn").getXml() == null) {
+                    log.warn("Warm-up conversion {} failed; skipping the rest of the warm-up", i);
+                    return;
+                }
+            }
+            last = System.nanoTime() - roundStart;
+            rounds++;
+            if (first < 0) {
+                first = last;
+            }
+            boolean steady = best != Long.MAX_VALUE && Math.abs(last - best) <= best * properties.getTolerance();
+            stable = steady ? stable + 1 : 0;
+            best = Math.min(best, last);
+        }
+        log.info("Warm-up {} after {} round(s) in {} ms: round time {} ms -> {} ms",
+                stable >= properties.getStableRounds() ? "levelled off" : "stopped at its time budget", rounds,
+                (System.nanoTime() - start) / 1_000_000, first / 1_000_000, last / 1_000_000);
+    }
+}
@@ -0,0 +1,110 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.model.BpmnData;
+import com.bpmnplus.model.BpmnFlow;
+import com.bpmnplus.model.BpmnProcess;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-document generator for ids of processes, flows and shapes that have
+ * none in the source file.
+ * In deterministic mode an id is derived from an FNV-1a hash of the element
+ * kind, its position in the document and its raw attributes, so converting
+ * the same input twice yields byte-identical output. Otherwise it falls back
+ * to random UUID fragments.
+ * Safe for use from the parallel process parsers; collisions are resolved
+ * afterwards by {@link #resolveCollisions(BpmnData)} in document order.
+ */
+class IdGenerator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final boolean deterministic;
+    private final Map<Object, String[]> generated = new ConcurrentHashMap<>();
+
+    IdGenerator(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Create an id for an element of the given kind ("Process", "Flow",
+     * "Shape") found at {@code position} with raw attribute text
+     * {@code attrs}, and remember that {@code owner} carries a generated id.
+     */
+    String generate(Object owner, String kind, String position, String attrs) {
+        String id = kind + "_" + (deterministic ? hash(kind, position, attrs, 0) : randomFragment());
+        generated.put(owner, new String[] { kind, position, attrs });
+        return id;
+    }
+
+    /**
+     * Make generated process and flow ids unique within the document. Ids
+     * from the source always win; a clashing generated id is re-derived with
+     * an increasing salt, visiting elements in document order.
+     */
+    void resolveCollisions(BpmnData data) {
+        if (generated.isEmpty()) {
+            return;
+        }
+        Set<String> used = new HashSet<>();
+        for (BpmnProcess proc : data.getProcesses()) {
+            if (!generated.containsKey(proc)) {
+                used.add(proc.getId());
+            }
+            proc.getElements().forEach(e -> used.add(e.getId()));
+            for (BpmnFlow f : proc.getFlows()) {
+                if (!generated.containsKey(f)) {
+                    used.add(f.getId());
+                }
+            }
+        }
+
+        for (BpmnProcess proc : data.getProcesses()) {
+            if (generated.containsKey(proc)) {
+                proc.setId(unique(proc, proc.getId(), used));
+            }
+            for (BpmnFlow f : proc.getFlows()) {
+                if (generated.containsKey(f)) {
+                    f.setId(unique(f, f.getId(), used));
+                }
+            }
+        }
+    }
+
+    private String unique(Object owner, String id, Set<String> used) {
+        String[] origin = generated.get(owner);
+        int salt = 0;
+        while (!used.add(id)) {
+            salt++;
+            id = origin[0] + "_" + (deterministic ? hash(origin[0], origin[1], origin[2], salt) : randomFragment());
+        }
+        return id;
+    }
+
+    private static String hash(String kind, String position, String attrs, int salt) {
+        long h = FNV_OFFSET;
+        h = mix(h, kind);
+        h = mix(h, position);
+        h = mix(h, attrs);
+        h = (h ^ salt) * FNV_PRIME;
+        // 28 bits, rendered as 7 hex digits like the UUID fragments
+        return String.format("%07x", (h ^ (h >>> 32)) & 0xFFFFFFFL);
+    }
+
+    private static long mix(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return (h ^ 0x1f) * FNV_PRIME;
+    }
+
+    private static String randomFragment() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 7);
+    }
+}
@@ -0,0 +1,96 @@
+package com.bpmnplus.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the conversions currently running, for
+ * {@code /actuator/inflight}. A conversion costs one map insert and removal,
+ * plus a volatile write per phase; readers take a weakly consistent snapshot
+ * without blocking the converting threads.
+ * Cancellation is cooperative: the conversion stops with a
+ * {@link java.util.concurrent.CancellationException} at its next phase
+ * boundary or routed edge.
+ */
+public class InFlightConversions {
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    Entry register(String filename, long inputChars) {
+        Entry entry = new Entry(ids.incrementAndGet(), filename, inputChars, Thread.currentThread());
+        entries.put(entry.id, entry);
+        return entry;
+    }
+
+    void remove(Entry entry) {
+        entries.remove(entry.id);
+    }
+
+    /**
+     * Running conversions, longest-running first.
+     */
+    public List<Entry> snapshot() {
+        List<Entry> result = new ArrayList<>(entries.values());
+        result.sort(Comparator.comparingLong(e -> e.startNanos));
+        return result;
+    }
+
+    /**
+     * Ask conversion {@code id} to stop. Returns false if it is not running.
+     */
+    public boolean cancel(long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancelled = true;
+        return true;
+    }
+
+    /**
+     * One running conversion.
+     */
+    public static final class Entry {
+
+        private final long id;
+        private final String filename;
+        private final long inputChars;
+        private final String thread;
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        volatile String phase;
+        volatile boolean cancelled;
+
+        private Entry(long id, String filename, long inputChars, Thread thread) {
+            this.id = id;
+            this.filename = filename;
+            this.inputChars = inputChars;
+            // Virtual threads have no name; their toString shows the carrier
+            this.thread = thread.getName().isEmpty() ? thread.toString() : thread.getName();
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Map<String, Object> describe() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", id);
+            m.put("file", filename);
+            m.put("inputChars", inputChars);
+            m.put("phase", phase);
+            m.put("elapsedMillis", (System.nanoTime() - startNanos) / 1_000_000.0);
+            m.put("startedAt", startedAt.toString());
+            m.put("thread", thread);
+            m.put("cancelRequested", cancelled);
+            return m;
+        }
+    }
+}
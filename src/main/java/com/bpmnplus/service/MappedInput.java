@@ -0,0 +1,67 @@
+package com.bpmnplus.service;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 input file by memory-mapping it and decoding straight into the
+ * char buffer the parser reads, without an intermediate byte array or string.
+ * Malformed bytes decode to U+FFFD, as they do for uploads read through an
+ * {@code InputStreamReader}, so a file converts the same whichever way it
+ * arrives.
+ */
+public final class MappedInput {
+
+    private MappedInput() {
+    }
+
+    /**
+     * Decode {@code file}. The result is a fresh buffer, since conversion
+     * listeners may keep the content after the conversion returns.
+     */
+    public static CharBuffer read(Path file) throws IOException {
+        return read(file, utf8Decoder());
+    }
+
+    /**
+     * A UTF-8 decoder that replaces malformed input rather than rejecting it.
+     */
+    public static CharsetDecoder utf8Decoder() {
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * As {@link #read(Path)}, reusing {@code decoder} (reset first).
+     */
+    public static CharBuffer read(Path file, CharsetDecoder decoder) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Input too large to convert: " + size + " bytes");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            // UTF-8 never decodes to more chars than it has bytes
+            CharBuffer chars = CharBuffer.allocate((int) size);
+            decoder.reset();
+            check(decoder.decode(mapped, chars, true));
+            check(decoder.flush(chars));
+            return chars.flip();
+        }
+    }
+
+    private static void check(CoderResult result) throws IOException {
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+}
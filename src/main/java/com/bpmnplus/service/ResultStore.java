@@ -0,0 +1,274 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.config.ResultStoreProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converted results, kept for download by id so conversion responses only
+ * carry a descriptor (id, filename, size, SHA-256) instead of the content.
+ * Results stay on the heap up to {@code bpmn.results.max-memory-bytes}; beyond
+ * that the least recently downloaded are written to the spool directory and
+ * served from there, up to {@code bpmn.results.max-disk-bytes}, beyond which
+ * the oldest spilled results are dropped. A result never changes, so its
+ * SHA-256 doubles as a strong ETag. Results are dropped
+ * {@code bpmn.results.expiry} after they were stored, by a sweep every
+ * {@code bpmn.results.sweep-interval} and on access; leftover spool files are
+ * removed at startup.
+ */
+@Service
+public class ResultStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultStore.class);
+
+    private static final String SUFFIX = ".result";
+
+    private final ResultStoreProperties properties;
+    private final Path spoolDir;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entries whose content is on the heap, least recently used first; guarded by itself
+    private final LinkedHashMap<String, Entry> inMemory = new LinkedHashMap<>(16, 0.75f, true);
+    // Entries whose content is in a spool file, oldest spilled first; guarded by inMemory
+    private final LinkedHashMap<String, Entry> spilled = new LinkedHashMap<>();
+    private final ScheduledExecutorService sweeper;
+    private long memoryBytes;
+    private long diskBytes;
+
+    public ResultStore(ResultStoreProperties properties) {
+        this.properties = properties;
+        this.spoolDir = Paths.get(properties.getSpoolDir());
+        // The directory itself is only created once the first result spills
+        if (Files.isDirectory(spoolDir)) {
+            try (DirectoryStream<Path> stale = Files.newDirectoryStream(spoolDir, "*" + SUFFIX)) {
+                for (Path file : stale) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot clean result directory " + spoolDir, e);
+            }
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "result-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalMs = properties.getSweepInterval().toMillis();
+        sweeper.scheduleWithFixedDelay(this::expire, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Store {@code content} under a new id.
+     */
+    public Entry put(String filename, String contentType, byte[] content) {
+        String digest = HexFormat.of().formatHex(sha256().digest(content));
+        Entry entry = new Entry(UUID.randomUUID().toString(), filename, contentType, digest, content);
+        entries.put(entry.id, entry);
+        List<Entry> victims = new ArrayList<>();
+        synchronized (inMemory) {
+            inMemory.put(entry.id, entry);
+            memoryBytes += entry.size;
+            Iterator<Entry> eldest = inMemory.values().iterator();
+            while (memoryBytes > properties.getMaxMemoryBytes() && eldest.hasNext()) {
+                Entry victim = eldest.next();
+                eldest.remove();
+                memoryBytes -= victim.size;
+                victims.add(victim);
+            }
+        }
+        // Written outside the lock; until then the victims are still served from their bytes
+        for (Entry victim : victims) {
+            spill(victim);
+        }
+        return entry;
+    }
+
+    /**
+     * The result stored under {@code id}, or null if unknown or expired.
+     */
+    public Entry get(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.storedAt > properties.getExpiry().toNanos()) {
+            discard(entry);
+            return null;
+        }
+        synchronized (inMemory) {
+            // Access order: a download makes the result the last to spill
+            inMemory.get(id);
+        }
+        return entry;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        entries.values().forEach(this::discard);
+    }
+
+    private void spill(Entry entry) {
+        Path file = spoolDir.resolve(entry.id + SUFFIX);
+        try {
+            Files.createDirectories(spoolDir);
+            Files.write(file, entry.content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            // Keep serving it from the heap, outside the budget, rather than lose it
+            log.warn("Cannot spill result {} to {}: {}", entry.id, file, e.getMessage());
+            return;
+        }
+        // File before content, so a reader that sees no content finds the file
+        entry.file = file;
+        entry.content = null;
+        boolean expired;
+        List<Entry> victims = new ArrayList<>();
+        synchronized (inMemory) {
+            expired = !entries.containsKey(entry.id);
+            if (!expired) {
+                spilled.put(entry.id, entry);
+                diskBytes += entry.size;
+                long excess = diskBytes - properties.getMaxDiskBytes();
+                Iterator<Entry> oldest = spilled.values().iterator();
+                while (excess > 0 && oldest.hasNext()) {
+                    Entry victim = oldest.next();
+                    victims.add(victim);
+                    excess -= victim.size;
+                }
+            }
+        }
+        if (expired) {
+            // Expired while it was being written
+            deleteFile(entry);
+            return;
+        }
+        for (Entry victim : victims) {
+            log.info("Dropping result {} ({} bytes): spool directory over {} bytes", victim.id, victim.size,
+                    properties.getMaxDiskBytes());
+            discard(victim);
+        }
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        long expiry = properties.getExpiry().toNanos();
+        for (Entry entry : entries.values()) {
+            // nanoTime values are only comparable by difference
+            if (now - entry.storedAt > expiry) {
+                discard(entry);
+            }
+        }
+    }
+
+    private void discard(Entry entry) {
+        if (entries.remove(entry.id, entry)) {
+            synchronized (inMemory) {
+                if (inMemory.remove(entry.id) != null) {
+                    memoryBytes -= entry.size;
+                }
+                if (spilled.remove(entry.id) != null) {
+                    diskBytes -= entry.size;
+                }
+            }
+            deleteFile(entry);
+        }
+    }
+
+    private static void deleteFile(Entry entry) {
+        Path file = entry.file;
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Cannot delete result spool file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * One stored result.
+     */
+    public static final class Entry {
+
+        private final String id;
+        private final String filename;
+        private final String contentType;
+        private final String digest;
+        private final long size;
+        private final long storedAt = System.nanoTime();
+        private volatile byte[] content;
+        private volatile Path file;
+
+        private Entry(String id, String filename, String contentType, String digest, byte[] content) {
+            this.id = id;
+            this.filename = filename;
+            this.contentType = contentType;
+            this.digest = digest;
+            this.size = content.length;
+            this.content = content;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Hex SHA-256 of the content.
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * The content, from the heap or from its spool file.
+         */
+        public Resource resource() {
+            byte[] bytes = content;
+            return bytes != null ? new ByteArrayResource(bytes) : new FileSystemResource(file);
+        }
+    }
+}
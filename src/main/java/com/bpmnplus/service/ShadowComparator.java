@@ -0,0 +1,287 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.config.ShadowProperties;
+import com.bpmnplus.model.*;
+import com.sun.management.ThreadMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Shadow mode: for a sampled share of conversions, re-runs the input through
+ * the regex parser and the candidate {@link StaxBpmnParser} on a background
+ * thread, both followed by the same XML builder, and compares the parsed
+ * {@link BpmnData} and the output XML. The regex parse runs sequentially on
+ * that one thread, so multi-pool files do not compete with live conversions
+ * for the fork-join pool.
+ * Divergent inputs are written to {@code capture-dir} with both outputs for
+ * later replay. Relative latency and allocation are published under
+ * {@code bpmn.shadow.*}. The caller's response is never touched: work that
+ * does not fit the bounded queue, or whose input would take the pending
+ * inputs past {@code max-pending-bytes}, is dropped.
+ */
+@Service
+@ConditionalOnProperty(prefix = "bpmn.shadow", name = "enabled", havingValue = "true")
+public class ShadowComparator implements ConversionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ShadowComparator.class);
+
+    /** Ids produced by {@link IdGenerator}; they depend on parser positions and are compared as wildcards. */
+    private static final Pattern GENERATED_ID = Pattern.compile("(?:Process|Flow)_[0-9a-f]{7}");
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final BpmnConvertService convertService;
+    private final ShadowProperties properties;
+    private final StaxBpmnParser candidate;
+    private final ThreadPoolExecutor executor;
+    private final ThreadMXBean threads;
+    private final AtomicInteger captures = new AtomicInteger();
+    // Heap held by inputs queued or being compared
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    private final Timer primaryTimer;
+    private final Timer candidateTimer;
+    private final DistributionSummary latencyRatio;
+    private final DistributionSummary primaryAlloc;
+    private final DistributionSummary candidateAlloc;
+    private final Counter compared;
+    private final Counter dropped;
+    private final MeterRegistry registry;
+
+    public ShadowComparator(BpmnConvertService convertService, ShadowProperties properties,
+            MeterRegistry registry) {
+        this.convertService = convertService;
+        this.properties = properties;
+        this.registry = registry;
+        this.candidate = new StaxBpmnParser(true);
+        this.threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getMaxPending())), r -> {
+                    Thread t = new Thread(r, "bpmn-shadow");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+
+        this.primaryTimer = Timer.builder("bpmn.shadow.latency").tag("parser", "regex").register(registry);
+        this.candidateTimer = Timer.builder("bpmn.shadow.latency").tag("parser", "stax").register(registry);
+        this.latencyRatio = DistributionSummary.builder("bpmn.shadow.latency.ratio")
+                .description("Candidate latency divided by primary latency")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.primaryAlloc = DistributionSummary.builder("bpmn.shadow.allocated").baseUnit("bytes")
+                .tag("parser", "regex").register(registry);
+        this.candidateAlloc = DistributionSummary.builder("bpmn.shadow.allocated").baseUnit("bytes")
+                .tag("parser", "stax").register(registry);
+        this.compared = Counter.builder("bpmn.shadow.compared").register(registry);
+        this.dropped = Counter.builder("bpmn.shadow.dropped")
+                .description("Sampled conversions dropped because the shadow queue or its byte budget was full")
+                .register(registry);
+
+        convertService.addListener(this);
+        log.info("Shadow mode enabled, sampling {} of conversions", properties.getSampleRate());
+    }
+
+    @Override
+    public void onConversion(String filename, CharSequence content, ConversionOptions options,
+            ConversionOutcome outcome) {
+        if (ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return;
+        }
+        // The queued task keeps the whole input reachable: reserve its heap size
+        long bytes = (long) content.length() * Character.BYTES;
+        if (executor.getQueue().remainingCapacity() == 0 || !reserve(bytes)) {
+            dropped.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    compare(filename, content);
+                } finally {
+                    pendingBytes.addAndGet(-bytes);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingBytes.addAndGet(-bytes);
+            dropped.increment();
+        }
+    }
+
+    private boolean reserve(long bytes) {
+        long max = properties.getMaxPendingBytes();
+        for (long current = pendingBytes.get(); current + bytes <= max; current = pendingBytes.get()) {
+            if (pendingBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // =====================================================================
+    // Comparison
+    // =====================================================================
+
+    private void compare(String filename, CharSequence content) {
+        try {
+            long alloc0 = threads.getCurrentThreadAllocatedBytes();
+            long t0 = System.nanoTime();
+            BpmnData primaryData = convertService.parseSequentially(content);
+            String primaryXml = render(primaryData);
+            long primaryNanos = System.nanoTime() - t0;
+            long primaryBytes = threads.getCurrentThreadAllocatedBytes() - alloc0;
+
+            BpmnData candidateData = null;
+            String candidateXml = null;
+            String candidateError = null;
+            alloc0 = threads.getCurrentThreadAllocatedBytes();
+            t0 = System.nanoTime();
+            try {
+                candidateData = candidate.parse(content);
+                candidateXml = render(candidateData);
+            } catch (Exception e) {
+                candidateError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+            long candidateNanos = System.nanoTime() - t0;
+            long candidateBytes = threads.getCurrentThreadAllocatedBytes() - alloc0;
+
+            compared.increment();
+            primaryTimer.record(primaryNanos, TimeUnit.NANOSECONDS);
+            candidateTimer.record(candidateNanos, TimeUnit.NANOSECONDS);
+            primaryAlloc.record(primaryBytes);
+            candidateAlloc.record(candidateBytes);
+            if (primaryNanos > 0) {
+                latencyRatio.record((double) candidateNanos / primaryNanos);
+            }
+
+            String kind;
+            List<String> differences = new ArrayList<>();
+            if (candidateError != null) {
+                kind = "error";
+                differences.add(candidateError);
+            } else {
+                diff(canonical(primaryData), canonical(candidateData), differences);
+                if (!differences.isEmpty()) {
+                    kind = "data";
+                } else if (!Objects.equals(primaryXml, candidateXml)) {
+                    kind = "xml";
+                    differences.add("Parsed data matches but output XML differs");
+                } else {
+                    return;
+                }
+            }
+
+            registry.counter("bpmn.shadow.divergences", "kind", kind).increment();
+            log.warn("Shadow divergence ({}) in {}: {}", kind, filename, differences.get(0));
+            capture(filename, content, primaryXml, candidateXml, kind, differences);
+        } catch (Exception e) {
+            log.warn("Shadow comparison of {} failed: {}", filename, e.getMessage());
+        }
+    }
+
+    private String render(BpmnData data) {
+        if (data.getProcesses().isEmpty()) {
+            return null;
+        }
+        XmlOutput out = new XmlOutput(null);
+        convertService.buildBpmn(data, out, new ConversionTrace());
+        return out.toString();
+    }
+
+    /**
+     * Order-insensitive textual form of the parsed data, one line per fact.
+     */
+    static List<String> canonical(BpmnData data) {
+        List<String> lines = new ArrayList<>();
+        lines.add("definitions " + data.getDefinitionsId());
+        for (int p = 0; p < data.getProcesses().size(); p++) {
+            BpmnProcess proc = data.getProcesses().get(p);
+            String prefix = "process[" + p + "] ";
+            lines.add(prefix + "id=" + mask(proc.getId()) + " name=" + proc.getName());
+            List<String> items = new ArrayList<>();
+            for (BpmnElement e : proc.getElements()) {
+                items.add(prefix + "element " + e.getType() + " id=" + e.getId() + " name=" + e.getName()
+                        + " in=" + e.getIncoming() + " out=" + e.getOutgoing() + " mi=" + e.isMultiInstance());
+            }
+            for (BpmnFlow f : proc.getFlows()) {
+                items.add(prefix + "flow id=" + mask(f.getId()) + " " + f.getSourceRef() + "->" + f.getTargetRef()
+                        + " name=" + f.getName() + " cond=" + f.getCondition());
+            }
+            Collections.sort(items);
+            lines.addAll(items);
+        }
+        List<String> shapes = new ArrayList<>();
+        for (BpmnShape s : data.getShapes()) {
+            shapes.add("shape " + s.getBpmnElement() + " " + s.getX() + "," + s.getY() + " "
+                    + s.getWidth() + "x" + s.getHeight());
+        }
+        Collections.sort(shapes);
+        lines.addAll(shapes);
+        return lines;
+    }
+
+    private static String mask(String id) {
+        return id != null && GENERATED_ID.matcher(id).matches() ? "*" : id;
+    }
+
+    private static void diff(List<String> primary, List<String> candidate, List<String> out) {
+        Set<String> onlyPrimary = new LinkedHashSet<>(primary);
+        onlyPrimary.removeAll(new HashSet<>(candidate));
+        Set<String> onlyCandidate = new LinkedHashSet<>(candidate);
+        onlyCandidate.removeAll(new HashSet<>(primary));
+        onlyPrimary.forEach(l -> out.add("- regex: " + l));
+        onlyCandidate.forEach(l -> out.add("+ stax:  " + l));
+    }
+
+    private void capture(String filename, CharSequence content, String primaryXml, String candidateXml,
+            String kind, List<String> differences) {
+        if (captures.incrementAndGet() > properties.getMaxCaptures()) {
+            return;
+        }
+        String safeName = String.valueOf(filename).replaceAll("[^A-Za-z0-9._-]", "_");
+        Path dir = Paths.get(properties.getCaptureDir(),
+                LocalDateTime.now().format(STAMP) + "-" + kind + "-" + safeName);
+        try {
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve("input.bpmn"), content, StandardCharsets.UTF_8);
+            if (primaryXml != null) {
+                Files.writeString(dir.resolve("regex.bpmn"), primaryXml, StandardCharsets.UTF_8);
+            }
+            if (candidateXml != null) {
+                Files.writeString(dir.resolve("stax.bpmn"), candidateXml, StandardCharsets.UTF_8);
+            }
+            Files.write(dir.resolve("diff.txt"), differences, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Cannot capture shadow divergence to {}: {}", dir, e.getMessage());
+        }
+    }
+}
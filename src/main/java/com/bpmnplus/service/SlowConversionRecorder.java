@@ -0,0 +1,180 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.config.SlowCaptureProperties;
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Keeps the inputs of the N slowest conversions seen since startup, together
+ * with their options and phase timings, so pathological production files can
+ * be exported and replayed offline (see {@code --replay=} on the CLI).
+ * Fast conversions only pay for a volatile read; the input is copied only
+ * when it displaces a captured entry. The captures are bounded both in number
+ * and in total input bytes; an input larger than the byte budget on its own is
+ * never captured. Opt-in ({@code bpmn.slow-capture.enabled}).
+ */
+@Service
+@ConditionalOnProperty(prefix = "bpmn.slow-capture", name = "enabled", havingValue = "true")
+public class SlowConversionRecorder implements ConversionListener {
+
+    /** Name of the manifest inside an export archive. */
+    public static final String MANIFEST = "manifest.json";
+
+    private final SlowCaptureProperties properties;
+    private final PriorityQueue<Capture> slowest = new PriorityQueue<>(
+            Comparator.comparingDouble(Capture::getTotalMillis));
+    private long capturedBytes;
+    private volatile double admissionMillis;
+
+    public SlowConversionRecorder(BpmnConvertService convertService, SlowCaptureProperties properties) {
+        this.properties = properties;
+        this.admissionMillis = properties.getMinMillis();
+        convertService.addListener(this);
+    }
+
+    @Override
+    public void onConversion(String filename, CharSequence content, ConversionOptions options,
+            ConversionOutcome outcome) {
+        // UTF-8 takes at least one byte per char, so this rules out oversized inputs before copying
+        if (outcome.getTotalMillis() < admissionMillis || content.length() > properties.getMaxBytes()) {
+            return;
+        }
+        Capture capture = new Capture(filename, content.toString().getBytes(StandardCharsets.UTF_8),
+                options, outcome);
+        if (capture.content.length > properties.getMaxBytes()) {
+            return;
+        }
+        synchronized (slowest) {
+            slowest.offer(capture);
+            capturedBytes += capture.content.length;
+            boolean evicted = false;
+            while (slowest.size() > properties.getCapacity() || capturedBytes > properties.getMaxBytes()) {
+                capturedBytes -= slowest.poll().content.length;
+                evicted = true;
+            }
+            if ((evicted || slowest.size() >= properties.getCapacity()) && !slowest.isEmpty()) {
+                admissionMillis = Math.max(properties.getMinMillis(), slowest.peek().getTotalMillis());
+            }
+        }
+    }
+
+    /**
+     * Captured conversions, slowest first.
+     */
+    public List<Capture> snapshot() {
+        List<Capture> result;
+        synchronized (slowest) {
+            result = new ArrayList<>(slowest);
+        }
+        result.sort(Comparator.comparingDouble(Capture::getTotalMillis).reversed());
+        return result;
+    }
+
+    public void clear() {
+        synchronized (slowest) {
+            slowest.clear();
+            capturedBytes = 0;
+            admissionMillis = properties.getMinMillis();
+        }
+    }
+
+    /**
+     * Write the captured set as a ZIP with {@value #MANIFEST} and one input
+     * file per entry under {@code inputs/}.
+     */
+    public void export(OutputStream out) throws IOException {
+        List<Capture> captures = snapshot();
+        List<Map<String, Object>> manifest = new ArrayList<>();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < captures.size(); i++) {
+                Capture c = captures.get(i);
+                String entryName = String.format("inputs/%03d-%s", i + 1,
+                        String.valueOf(c.getFilename()).replaceAll("[^A-Za-z0-9._-]", "_"));
+                zip.putNextEntry(new ZipEntry(entryName));
+                zip.write(c.content);
+                zip.closeEntry();
+
+                Map<String, Object> entry = c.describe();
+                entry.put("file", entryName);
+                manifest.add(entry);
+            }
+            zip.putNextEntry(new ZipEntry(MANIFEST));
+            zip.write(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest));
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * One captured slow conversion.
+     */
+    public static final class Capture {
+
+        private final String filename;
+        private final byte[] content;
+        private final Map<String, Object> options;
+        private final Instant capturedAt = Instant.now();
+        private final String thread = Thread.currentThread().getName();
+        private final double totalMillis;
+        private final Map<String, Double> timings;
+        private final boolean success;
+
+        private Capture(String filename, byte[] content, ConversionOptions options, ConversionOutcome outcome) {
+            this.filename = filename;
+            this.content = content;
+            this.totalMillis = outcome.getTotalMillis();
+            this.options = describe(options, totalMillis);
+            this.timings = outcome.getTimings();
+            this.success = outcome.isSuccess();
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        /**
+         * Everything except the input bytes, for listings and the manifest.
+         */
+        public Map<String, Object> describe() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("filename", filename);
+            map.put("inputBytes", content.length);
+            map.put("totalMillis", totalMillis);
+            map.put("timings", timings);
+            map.put("success", success);
+            map.put("options", options);
+            map.put("capturedAt", capturedAt.toString());
+            map.put("thread", thread);
+            return map;
+        }
+
+        /**
+         * The options a replay needs to repeat the conversion: validation,
+         * output format, and the deadline as the budget the conversion had
+         * from its start (the conversion has just finished).
+         */
+        private static Map<String, Object> describe(ConversionOptions options, double totalMillis) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("validate", options.isValidate());
+            map.put("format", options.getFormat().name());
+            if (options.hasDeadline()) {
+                map.put("deadlineMillis", (options.getDeadlineNanos() - System.nanoTime()) / 1e6 + totalMillis);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.model.*;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Candidate streaming parser built on StAX, producing the same
+ * {@link BpmnData} as the regex parser in {@link BpmnConvertService} in a
+ * single pass over the document. Used by shadow mode to compare both
+ * implementations on real traffic before the candidate is trusted.
+ * Namespace prefixes are ignored (matching on local names), as the regex
+ * parser does, so inputs with undeclared prefixes still parse.
+ */
+class StaxBpmnParser {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+    static {
+        FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final boolean deterministicIds;
+
+    StaxBpmnParser(boolean deterministicIds) {
+        this.deterministicIds = deterministicIds;
+    }
+
+    BpmnData parse(CharSequence content) throws XMLStreamException {
+        // Read in place rather than copying the input into a String
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(new CharSequenceReader(content));
+        try {
+            return parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private BpmnData parse(XMLStreamReader reader) throws XMLStreamException {
+        BpmnData data = new BpmnData();
+        IdGenerator ids = new IdGenerator(deterministicIds);
+
+        int processIndex = -1;
+        BpmnProcess proc = null;
+        Map<String, List<BpmnElement>> byType = null;
+        Set<String> procIds = null;
+        Deque<BpmnElement> openNodes = new ArrayDeque<>();
+        BpmnFlow flow = null;
+        BpmnShape shape = null;
+        String textTarget = null;
+        StringBuilder text = new StringBuilder();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String tag = localName(reader.getLocalName());
+                if ("definitions".equals(tag)) {
+                    String id = attr(reader, "id");
+                    data.setDefinitionsId(id != null ? id : "Definitions_1");
+                } else if ("process".equals(tag)) {
+                    processIndex++;
+                    String id = attr(reader, "id");
+                    String name = attr(reader, "name");
+                    proc = new BpmnProcess(id, name != null ? name : "Process_Name");
+                    if (id == null) {
+                        proc.setId(ids.generate(proc, "Process", "stax:" + processIndex, ""));
+                    }
+                    byType = new LinkedHashMap<>();
+                    procIds = new HashSet<>();
+                } else if (proc != null && isFlowNode(tag)) {
+                    BpmnElement elem = null;
+                    String id = attr(reader, "id");
+                    if (id != null && !id.isEmpty() && procIds.add(id)) {
+                        CustomTagMapping mapping = BpmnConvertService.CUSTOM_TAG_MAP.get(tag);
+                        elem = new BpmnElement(mapping != null ? mapping.getMappedType() : tag, id,
+                                optional(attr(reader, "name")));
+                        elem.setMultiInstance(mapping != null && mapping.isMultiInstance());
+                        byType.computeIfAbsent(tag, k -> new ArrayList<>()).add(elem);
+                    }
+                    openNodes.push(elem != null ? elem : new BpmnElement());
+                } else if (proc != null && "sequenceFlow".equals(tag)) {
+                    flow = new BpmnFlow();
+                    String id = attr(reader, "id");
+                    flow.setId(id != null ? id
+                            : ids.generate(flow, "Flow", "stax:" + reader.getLocation().getCharacterOffset(), ""));
+                    flow.setSourceRef(optional(attr(reader, "sourceRef")));
+                    flow.setTargetRef(optional(attr(reader, "targetRef")));
+                    flow.setName(optional(attr(reader, "name")));
+                } else if (("incoming".equals(tag) || "outgoing".equals(tag)) && !openNodes.isEmpty()
+                        || "conditionExpression".equals(tag) && flow != null) {
+                    textTarget = tag;
+                    text.setLength(0);
+                } else if ("BPMNShape".equals(tag)) {
+                    shape = new BpmnShape();
+                    String bpmnElement = attr(reader, "bpmnElement");
+                    shape.setBpmnElement(bpmnElement != null ? bpmnElement : "");
+                    String id = attr(reader, "id");
+                    shape.setId(id != null ? id
+                            : ids.generate(shape, "Shape", "stax:" + reader.getLocation().getCharacterOffset(), ""));
+                } else if ("Bounds".equals(tag) && shape != null) {
+                    shape.setX(intAttr(reader, "x"));
+                    shape.setY(intAttr(reader, "y"));
+                    shape.setWidth(intAttr(reader, "width"));
+                    shape.setHeight(intAttr(reader, "height"));
+                    if (!shape.getBpmnElement().isEmpty()) {
+                        data.getShapes().add(shape);
+                    }
+                    shape = null;
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                if (textTarget != null) {
+                    text.append(reader.getText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String tag = localName(reader.getLocalName());
+                if (textTarget != null && textTarget.equals(tag)) {
+                    if ("conditionExpression".equals(tag)) {
+                        flow.setCondition(text.toString().trim());
+                    } else if ("incoming".equals(tag)) {
+                        openNodes.peek().getIncoming().add(text.toString());
+                    } else {
+                        openNodes.peek().getOutgoing().add(text.toString());
+                    }
+                    textTarget = null;
+                } else if (proc != null && isFlowNode(tag) && !openNodes.isEmpty()) {
+                    openNodes.pop();
+                } else if ("sequenceFlow".equals(tag) && flow != null) {
+                    proc.getFlows().add(flow);
+                    flow = null;
+                } else if ("BPMNShape".equals(tag)) {
+                    shape = null;
+                } else if ("process".equals(tag) && proc != null) {
+                    for (String type : BpmnConvertService.FLOW_NODE_TAGS) {
+                        proc.getElements().addAll(byType.getOrDefault(type, List.of()));
+                    }
+                    for (String type : BpmnConvertService.CUSTOM_TAG_MAP.keySet()) {
+                        proc.getElements().addAll(byType.getOrDefault(type, List.of()));
+                    }
+                    data.getProcesses().add(proc);
+                    proc = null;
+                }
+            }
+        }
+        ids.resolveCollisions(data);
+        return data;
+    }
+
+    private static boolean isFlowNode(String tag) {
+        return BpmnConvertService.FLOW_NODE_TAGS.contains(tag)
+                || BpmnConvertService.CUSTOM_TAG_MAP.containsKey(tag);
+    }
+
+    private static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    private static String attr(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (name.equals(localName(reader.getAttributeLocalName(i)))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static Integer intAttr(XMLStreamReader reader, String name) {
+        String v = attr(reader, name);
+        if (v == null)
+            return null;
+        try {
+            return (int) Double.parseDouble(v);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String optional(String s) {
+        return s != null ? s : "";
+    }
+
+    /**
+     * Reader over a {@link CharSequence}, which may be a mapped or decoded
+     * buffer as well as a String.
+     */
+    private static final class CharSequenceReader extends Reader {
+
+        private final CharSequence content;
+        private int pos;
+
+        CharSequenceReader(CharSequence content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int n) {
+            if (pos >= content.length()) {
+                return -1;
+            }
+            int step = Math.min(n, content.length() - pos);
+            if (content instanceof String s) {
+                s.getChars(pos, pos + step, cbuf, off);
+            } else {
+                for (int i = 0; i < step; i++) {
+                    cbuf[off + i] = content.charAt(pos + i);
+                }
+            }
+            pos += step;
+            return step;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
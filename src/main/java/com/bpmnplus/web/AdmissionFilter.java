@@ -0,0 +1,77 @@
+package com.bpmnplus.web;
+
+import com.bpmnplus.service.ConversionAdmission;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter reserving the {@link ConversionAdmission} byte budget for
+ * conversion endpoints. It runs before the multipart body is parsed, so
+ * rejected uploads are never read into memory or spooled to disk. The budget
+ * is charged from {@code Content-Length}, so requests without one (chunked
+ * transfer encoding) are refused with {@code 411 Length Required} rather than
+ * admitted as free. The concurrency slot is taken later by the controller,
+ * around the conversion itself, so slow uploads do not hold one.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionFilter.class);
+
+    private final ConversionAdmission admission;
+
+    public AdmissionFilter(ConversionAdmission admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+        long length = request.getContentLengthLong();
+        if (length < 0) {
+            log.warn("Rejected {}: no Content-Length", request.getRequestURI());
+            response.setStatus(HttpStatus.LENGTH_REQUIRED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Content-Length is required\"}");
+            return;
+        }
+        ConversionAdmission.Permit permit = acquire(length);
+
+        if (permit == null) {
+            log.warn("Rejected {} ({} bytes): conversion capacity saturated",
+                    request.getRequestURI(), length);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many conversion bytes in flight, retry later\"}");
+            return;
+        }
+
+        try (permit) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private ConversionAdmission.Permit acquire(long bytes) {
+        try {
+            return admission.tryReserve(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
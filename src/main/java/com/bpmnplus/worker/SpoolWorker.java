@@ -0,0 +1,410 @@
+package com.bpmnplus.worker;
+
+import com.bpmnplus.config.WorkerProperties;
+import com.bpmnplus.service.BpmnConvertService;
+import com.bpmnplus.service.MappedInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spool-directory worker mode.
+ * Each instance polls {@code <spool>/inbox}, claims files by atomically renaming
+ * them into {@code <spool>/work/<workerId>}, converts them and publishes the
+ * result to {@code <spool>/outbox}. Inputs whose conversion fails, with any
+ * exception, or whose result cannot be published are moved to
+ * {@code <spool>/failed}, and the worker carries on with the next file.
+ * Every attempt is counted in a dot-file next to the claimed input, so a file
+ * that kills the process is retried from the work directory at most
+ * {@code max-attempts} times before it goes to {@code failed} as well.
+ * A worker keeps a {@code .lease} file in its work directory fresh; once a
+ * lease is older than the configured timeout, any other worker moves the
+ * abandoned files back to the inbox; an abandoned file whose name has been
+ * resubmitted to the inbox meanwhile goes back under a suffixed name. A worker that was only paused (GC, VM
+ * freeze) recreates its work directory and lease when it resumes.
+ * Lease ages are measured against the modification time of the worker's own
+ * lease, rewritten just before, so every timestamp compared comes from the
+ * shared volume's clock rather than from the workers' local clocks. This
+ * assumes the volume stamps modification times itself on write, as NFS and
+ * SMB servers do; the lease timeout should still be well above the poll
+ * interval plus the longest single conversion.
+ * Producers should write into the inbox under a dot-prefixed or {@code .part}
+ * name and rename when complete, so half-written files are never claimed.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bpmn.worker", name = "enabled", havingValue = "true")
+public class SpoolWorker implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolWorker.class);
+
+    private static final String LEASE_FILE = ".lease";
+    private static final String ATTEMPTS_SUFFIX = ".attempts";
+
+    private final BpmnConvertService convertService;
+    private final WorkerProperties properties;
+    private final String workerId;
+
+    private final Path inbox;
+    private final Path workRoot;
+    private final Path workDir;
+    private final Path outbox;
+    private final Path failed;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public SpoolWorker(BpmnConvertService convertService, WorkerProperties properties) {
+        this.convertService = convertService;
+        this.properties = properties;
+        this.workerId = properties.getWorkerId() != null && !properties.getWorkerId().isEmpty()
+                ? properties.getWorkerId()
+                : ManagementFactory.getRuntimeMXBean().getName().replaceAll("[^A-Za-z0-9._-]", "_");
+
+        Path root = Paths.get(properties.getSpoolDir());
+        this.inbox = root.resolve("inbox");
+        this.workRoot = root.resolve("work");
+        this.workDir = workRoot.resolve(workerId);
+        this.outbox = root.resolve("outbox");
+        this.failed = root.resolve("failed");
+    }
+
+    @Override
+    public void start() {
+        try {
+            Files.createDirectories(inbox);
+            Files.createDirectories(workDir);
+            Files.createDirectories(outbox);
+            Files.createDirectories(failed);
+            renewLease();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot prepare spool directory " + properties.getSpoolDir(), e);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "spool-worker-" + workerId);
+            t.setDaemon(false);
+            return t;
+        });
+        long intervalMs = properties.getPollInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::poll, 0, intervalMs, TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("Spool worker {} started on {}", workerId, properties.getSpoolDir());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Spool worker {} stopped", workerId);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // =====================================================================
+    // Poll loop
+    // =====================================================================
+
+    private void poll() {
+        try {
+            long now = renewLease();
+
+            // Files left over from a previous run of this same worker id
+            for (Path leftover : listCandidates(workDir, Integer.MAX_VALUE)) {
+                int attempts = attempts(leftover);
+                if (attempts >= properties.getMaxAttempts()) {
+                    log.error("✗ {}: giving up after {} attempt(s) -> failed", leftover.getFileName(), attempts);
+                    fail(leftover);
+                } else {
+                    process(leftover);
+                }
+            }
+
+            reclaimExpiredLeases(now);
+
+            for (Path candidate : listCandidates(inbox, properties.getBatchSize())) {
+                Path claimed = claim(candidate);
+                if (claimed != null) {
+                    process(claimed);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Spool worker {} poll failed: {}", workerId, e.getMessage(), e);
+        }
+    }
+
+    private Path claim(Path candidate) {
+        Path target = workDir.resolve(candidate.getFileName());
+        try {
+            return Files.move(candidate, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException | FileAlreadyExistsException e) {
+            // Claimed by another worker in the meantime
+            return null;
+        } catch (IOException e) {
+            log.warn("Cannot claim {}: {}", candidate, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Convert one claimed file and publish its result. Any failure of this
+     * file moves it to {@code failed}; only a failure to renew the lease
+     * propagates, since then the spool volume itself is in trouble.
+     */
+    private void process(Path claimed) throws IOException {
+        String filename = claimed.getFileName().toString();
+        recordAttempt(claimed);
+        String xml = null;
+        try {
+            xml = convertService.performConversion(MappedInput.read(claimed), filename);
+        } catch (IOException | RuntimeException e) {
+            log.error("✗ {}: {}", filename, e.getMessage(), e);
+        }
+
+        if (xml == null) {
+            log.warn("✗ {} -> failed", filename);
+            fail(claimed);
+            return;
+        }
+
+        int dotIdx = filename.lastIndexOf('.');
+        String newName = (dotIdx > 0 ? filename.substring(0, dotIdx) : filename) + "_camunda.bpmn";
+        Path tmp = outbox.resolve("." + newName + "." + workerId + ".part");
+        try {
+            Files.writeString(tmp, xml, StandardCharsets.UTF_8);
+            Files.move(tmp, outbox.resolve(newName), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            log.error("✗ {}: cannot publish {}: {} -> failed", filename, newName, e.getMessage());
+            deleteQuietly(tmp);
+            fail(claimed);
+            return;
+        }
+        deleteQuietly(claimed);
+        deleteQuietly(attemptsFile(claimed));
+        renewLease();
+        log.info("✓ {} -> {}", filename, newName);
+    }
+
+    private void fail(Path claimed) {
+        moveQuietly(claimed, failed.resolve(claimed.getFileName()));
+        deleteQuietly(attemptsFile(claimed));
+    }
+
+    // =====================================================================
+    // Attempts
+    // =====================================================================
+
+    private static Path attemptsFile(Path claimed) {
+        return claimed.resolveSibling("." + claimed.getFileName() + ATTEMPTS_SUFFIX);
+    }
+
+    private static int attempts(Path claimed) {
+        try {
+            return Integer.parseInt(Files.readString(attemptsFile(claimed), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Count an attempt before converting, so it survives the process dying
+     * during the conversion.
+     */
+    private static void recordAttempt(Path claimed) throws IOException {
+        Files.writeString(attemptsFile(claimed), String.valueOf(attempts(claimed) + 1), StandardCharsets.UTF_8);
+    }
+
+    // =====================================================================
+    // Leases
+    // =====================================================================
+
+    /**
+     * Refresh this worker's lease and return its new modification time, the
+     * shared volume's idea of "now".
+     */
+    private long renewLease() throws IOException {
+        // Another worker removes the directory if it took this one for dead during a pause
+        Files.createDirectories(workDir);
+        Path lease = workDir.resolve(LEASE_FILE);
+        // Rewritten rather than given a local timestamp, so the volume's clock stamps it
+        Files.writeString(lease, workerId, StandardCharsets.UTF_8);
+        return Files.getLastModifiedTime(lease).toMillis();
+    }
+
+    /**
+     * Move files out of work directories whose lease has expired back to the
+     * inbox. Each move is atomic, so concurrent reclaimers never duplicate work.
+     * {@code now} is the modification time of this worker's fresh lease.
+     */
+    private void reclaimExpiredLeases(long now) throws IOException {
+        long cutoff = now - properties.getLeaseTimeout().toMillis();
+        List<Path> dirs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(workRoot, Files::isDirectory)) {
+            for (Path dir : stream) {
+                if (!dir.equals(workDir)) {
+                    dirs.add(dir);
+                }
+            }
+        }
+
+        for (Path dir : dirs) {
+            Path lease = dir.resolve(LEASE_FILE);
+            long lastSeen;
+            try {
+                lastSeen = Files.getLastModifiedTime(Files.exists(lease) ? lease : dir).toMillis();
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            if (lastSeen >= cutoff) {
+                continue;
+            }
+
+            List<Path> orphans = listCandidates(dir, Integer.MAX_VALUE);
+            for (Path orphan : orphans) {
+                reclaim(orphan, dir.getFileName().toString());
+            }
+            if (!orphans.isEmpty()) {
+                log.warn("Reclaimed {} file(s) from expired worker {}", orphans.size(), dir.getFileName());
+            }
+            try {
+                try (DirectoryStream<Path> counters = Files.newDirectoryStream(dir, ".*" + ATTEMPTS_SUFFIX)) {
+                    for (Path counter : counters) {
+                        Files.deleteIfExists(counter);
+                    }
+                }
+                Files.deleteIfExists(lease);
+                Files.deleteIfExists(dir);
+            } catch (IOException e) {
+                // Directory not empty, removed concurrently or recreated by its worker; retried on the next poll
+            }
+        }
+    }
+
+    /**
+     * Move one abandoned file back to the inbox. If the inbox already holds a
+     * file of that name (resubmitted since), the orphan goes back as
+     * {@code <name>.reclaimed-<worker>.<ext>}, or to {@code failed} if that
+     * name is taken too.
+     */
+    private void reclaim(Path orphan, String deadWorker) throws IOException {
+        String filename = orphan.getFileName().toString();
+        try {
+            moveNoReplace(orphan, inbox.resolve(filename));
+            return;
+        } catch (NoSuchFileException e) {
+            // Already reclaimed by another worker
+            return;
+        } catch (FileAlreadyExistsException e) {
+            if (isSameFile(orphan, inbox.resolve(filename))) {
+                // Another worker is reclaiming it right now
+                return;
+            }
+            // A new file of the same name was submitted meanwhile; keep both
+        }
+        int dotIdx = filename.lastIndexOf('.');
+        String renamed = dotIdx > 0
+                ? filename.substring(0, dotIdx) + ".reclaimed-" + deadWorker + filename.substring(dotIdx)
+                : filename + ".reclaimed-" + deadWorker;
+        try {
+            moveNoReplace(orphan, inbox.resolve(renamed));
+            log.warn("Reclaimed {} from expired worker {} as {}: the inbox already has that name",
+                    filename, deadWorker, renamed);
+        } catch (NoSuchFileException e) {
+            // Already reclaimed by another worker
+        } catch (FileAlreadyExistsException e) {
+            if (isSameFile(orphan, inbox.resolve(renamed))) {
+                return;
+            }
+            log.error("Cannot reclaim {} from expired worker {}: {} and {} are both in the inbox -> failed",
+                    filename, deadWorker, filename, renamed);
+            moveQuietly(orphan, failed.resolve(renamed));
+        }
+    }
+
+    // =====================================================================
+    // Utility helpers
+    // =====================================================================
+
+    private List<Path> listCandidates(Path dir, int limit) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                if (name.startsWith(".") || name.endsWith(".part") || !Files.isRegularFile(p)) {
+                    continue;
+                }
+                result.add(p);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Move {@code from} to {@code to} unless {@code to} exists. A rename
+     * silently replaces an existing target on POSIX volumes, so the file is
+     * hard-linked under the new name, which fails if the name is taken, and
+     * then unlinked. Volumes without hard links fall back to a check followed
+     * by a rename.
+     */
+    private static void moveNoReplace(Path from, Path to) throws IOException {
+        try {
+            Files.createLink(to, from);
+        } catch (UnsupportedOperationException e) {
+            if (Files.exists(to)) {
+                throw new FileAlreadyExistsException(to.toString());
+            }
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+            return;
+        }
+        Files.deleteIfExists(from);
+    }
+
+    private static boolean isSameFile(Path a, Path b) {
+        try {
+            return Files.isSameFile(a, b);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void moveQuietly(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Cannot move {} to {}: {}", from, to, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.model.ConversionOptions;
+import com.bpmnplus.model.ConversionOutcome;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Complexity and correctness checks for the converter, in two parts.
+ * <p>
+ * Worst cases: each input family from {@link SyntheticBpmn} (a well-formed
+ * diagram and malformed documents aimed at the parser's regexes) is converted
+ * at 1x, 2x, 4x and 8x a base size, and the cost per item at the largest size
+ * is compared with the cost per item at the smallest ({@link #assertLinear}):
+ * allocation may grow at most {@value #ALLOCATION_FACTOR} times and CPU time
+ * at most {@value #TIME_FACTOR} times. A quadratic scan shows up as a ratio
+ * of about 8.
+ * <p>
+ * Diagram sizes: generated diagrams of 1k and 10k elements must keep their
+ * cost per element within the same limits of the smallest size, and their
+ * output must pass {@link OutputInvariants}. This catches a quadratic loop in
+ * the builder as well as in the parser. The 100k-element size takes about a
+ * minute and is tagged {@value #SCALING}: {@code mvn test -Pscaling} runs it.
+ */
+class BpmnConvertServiceScalingTest {
+
+    private static final int BASE = 1000;
+    private static final int[] MULTIPLIERS = { 1, 2, 4, 8 };
+    private static final int RUNS = 5;
+    private static final String SCALING = "scaling";
+    private static final double TIME_FACTOR = 4;
+    private static final double ALLOCATION_FACTOR = 2;
+
+    private final BpmnConvertService convertService = new BpmnConvertService();
+
+    static Stream<Arguments> families() {
+        return Stream.of(
+                Arguments.of("well-formed diagram", (IntFunction<String>) SyntheticBpmn::diagram),
+                Arguments.of("unclosed tasks", (IntFunction<String>) SyntheticBpmn::unclosedTasks),
+                Arguments.of("shapes without bounds", (IntFunction<String>) SyntheticBpmn::shapesWithoutBounds),
+                Arguments.of("self-closing flows", (IntFunction<String>) SyntheticBpmn::selfClosingFlows),
+                Arguments.of("unclosed processes", (IntFunction<String>) SyntheticBpmn::unclosedProcesses));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("families")
+    void worstCaseInputsScaleLinearly(String name, IntFunction<String> generator) {
+        warmUp(generator.apply(BASE * 2));
+
+        int firstSize = BASE * MULTIPLIERS[0];
+        int lastSize = BASE * MULTIPLIERS[MULTIPLIERS.length - 1];
+        Cost first = measure(generator.apply(firstSize), firstSize, RUNS);
+        Cost last = first;
+        for (int m = 1; m < MULTIPLIERS.length; m++) {
+            int size = BASE * MULTIPLIERS[m];
+            last = measure(generator.apply(size), size, RUNS);
+        }
+        assertLinear(name + ", " + firstSize + " to " + lastSize + " items", first, last);
+    }
+
+    @Test
+    void diagramSizesScaleLinearlyAndKeepInvariants() throws XMLStreamException {
+        checkDiagramSizes(1000, 10_000);
+    }
+
+    @Test
+    @Tag(SCALING)
+    void largeDiagramScalesLinearlyAndKeepsInvariants() throws XMLStreamException {
+        checkDiagramSizes(1000, 100_000);
+    }
+
+    private void checkDiagramSizes(int... sizes) throws XMLStreamException {
+        warmUp(SyntheticBpmn.diagram(sizes[0]));
+
+        Cost first = null;
+        for (int size : sizes) {
+            String input = SyntheticBpmn.diagram(size);
+            Cost cost = measure(input, size, 3);
+
+            String xml = cost.outcome().getXml();
+            assertNotNull(xml, size + " elements: conversion failed");
+            assertEquals(List.of(), OutputInvariants.check(input, xml), size + " elements: output invariants");
+
+            if (first == null) {
+                first = cost;
+            } else {
+                assertLinear(sizes[0] + " to " + size + " elements", first, cost);
+            }
+        }
+    }
+
+    /**
+     * Convert {@code input} a few times first, so the smallest size is not
+     * measured on interpreted code.
+     */
+    private void warmUp(String input) {
+        for (int i = 0; i < RUNS; i++) {
+            convert(input);
+        }
+    }
+
+    /**
+     * Per-item cost of converting {@code input}, which holds {@code items}
+     * items: the median CPU time and the median allocation over {@code runs}
+     * conversions. CPU time leaves out GC threads and time the runner was
+     * descheduled, and the median ignores a single slow run. Either is -1
+     * where the JVM does not measure it.
+     */
+    private Cost measure(String input, int items, int runs) {
+        double[] cpuMillis = new double[runs];
+        long[] allocated = new long[runs];
+        ConversionOutcome outcome = null;
+        for (int i = 0; i < runs; i++) {
+            outcome = convert(input);
+            cpuMillis[i] = outcome.getCpuMillis();
+            allocated[i] = outcome.getAllocatedBytes();
+        }
+        Arrays.sort(cpuMillis);
+        Arrays.sort(allocated);
+        double cpu = cpuMillis[runs / 2];
+        long bytes = allocated[runs / 2];
+        return new Cost(cpu < 0 ? -1 : cpu * 1e6 / items, bytes < 0 ? -1 : (double) bytes / items, outcome);
+    }
+
+    /**
+     * Allocation is deterministic, so it is the primary signal and held to
+     * {@value #ALLOCATION_FACTOR}; CPU time only has to stay within the looser
+     * {@value #TIME_FACTOR}, which still catches regex backtracking that
+     * burns time without allocating.
+     */
+    private static void assertLinear(String what, Cost first, Cost last) {
+        if (first.bytesPerItem() > 0 && last.bytesPerItem() >= 0) {
+            double growth = last.bytesPerItem() / first.bytesPerItem();
+            assertTrue(growth <= ALLOCATION_FACTOR,
+                    String.format("%s: allocation per item grew %.2fx", what, growth));
+        }
+        if (first.nanosPerItem() > 0 && last.nanosPerItem() >= 0) {
+            double growth = last.nanosPerItem() / first.nanosPerItem();
+            assertTrue(growth <= TIME_FACTOR, String.format("%s: CPU time per item grew %.2fx", what, growth));
+        }
+    }
+
+    private ConversionOutcome convert(String input) {
+        return convertService.convert(input, "scaling-check.bpmn", new ConversionOptions());
+    }
+
+    /**
+     * Median per-item cost of one input, and the outcome of its last run.
+     */
+    private record Cost(double nanosPerItem, double bytesPerItem, ConversionOutcome outcome) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.bpmnplus.service;
+
+import com.bpmnplus.model.BpmnData;
+import com.bpmnplus.model.BpmnFlow;
+import com.bpmnplus.model.BpmnProcess;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deterministic ids for elements without one: stable across runs, the same
+ * whatever order the process parsers finish in, and unique after
+ * {@link IdGenerator#resolveCollisions}.
+ */
+class IdGeneratorTest {
+
+    private static final String FLOW_ATTRS = " sourceRef=\"a\" targetRef=\"b\"";
+
+    @Test
+    void deterministicIdsAreStableAcrossRuns() {
+        // Pinned values: a change to the hash changes every converted file without ids
+        assertEquals("Flow_518c898", new IdGenerator(true).generate(new Object(), "Flow", "0:12", FLOW_ATTRS));
+        assertEquals("Process_529c263", new IdGenerator(true).generate(new Object(), "Process", "0", " name=\"P\""));
+    }
+
+    @Test
+    void deterministicIdsDependOnPositionAndAttributes() {
+        IdGenerator ids = new IdGenerator(true);
+        String id = ids.generate(new Object(), "Flow", "0:12", FLOW_ATTRS);
+
+        assertNotEquals(id, ids.generate(new Object(), "Flow", "0:13", FLOW_ATTRS));
+        assertNotEquals(id, ids.generate(new Object(), "Flow", "0:12", " sourceRef=\"a\" targetRef=\"c\""));
+    }
+
+    @Test
+    void idsDoNotDependOnParseOrder() {
+        BpmnConvertService service = new BpmnConvertService();
+        String content = collaboration(8);
+        List<String> sequential = ids(service.parseSequentially(content));
+        assertEquals(8 * 3, sequential.size());
+
+        for (int run = 0; run < 20; run++) {
+            assertEquals(sequential, ids(service.parseFileContent(content, new ConversionTrace())));
+        }
+        assertEquals(new HashSet<>(sequential).size(), sequential.size(), sequential.toString());
+    }
+
+    @Test
+    void resolveCollisionsSaltsClashingGeneratedIds() {
+        IdGenerator ids = new IdGenerator(true);
+        BpmnProcess proc = new BpmnProcess("Process_1", "P");
+        BpmnFlow first = flow(ids.generate(new Object(), "Flow", "0:12", FLOW_ATTRS));
+        proc.getFlows().add(first);
+        List<BpmnFlow> generated = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            BpmnFlow f = new BpmnFlow();
+            f.setId(ids.generate(f, "Flow", "0:12", FLOW_ATTRS));
+            generated.add(f);
+            proc.getFlows().add(f);
+        }
+        BpmnData data = new BpmnData();
+        data.getProcesses().add(proc);
+
+        ids.resolveCollisions(data);
+
+        // The id from the source (first) wins; the generated copies are re-derived
+        assertEquals("Flow_518c898", first.getId());
+        Set<String> unique = new HashSet<>();
+        proc.getFlows().forEach(f -> unique.add(f.getId()));
+        assertEquals(4, unique.size(), unique.toString());
+        for (BpmnFlow f : generated) {
+            assertTrue(f.getId().matches("Flow_[0-9a-f]{7}"), f.getId());
+        }
+    }
+
+    @Test
+    void resolveCollisionsIsRepeatable() {
+        assertEquals(resolvedTwins(), resolvedTwins());
+    }
+
+    private static List<String> resolvedTwins() {
+        IdGenerator ids = new IdGenerator(true);
+        BpmnProcess proc = new BpmnProcess("Process_1", "P");
+        for (int i = 0; i < 3; i++) {
+            BpmnFlow f = new BpmnFlow();
+            f.setId(ids.generate(f, "Flow", "0:12", FLOW_ATTRS));
+            proc.getFlows().add(f);
+        }
+        BpmnData data = new BpmnData();
+        data.getProcesses().add(proc);
+        ids.resolveCollisions(data);
+        List<String> result = new ArrayList<>();
+        proc.getFlows().forEach(f -> result.add(f.getId()));
+        return result;
+    }
+
+    private static BpmnFlow flow(String id) {
+        BpmnFlow f = new BpmnFlow();
+        f.setId(id);
+        return f;
+    }
+
+    /** Process and flow ids in document order. */
+    private static List<String> ids(BpmnData data) {
+        List<String> ids = new ArrayList<>();
+        for (BpmnProcess proc : data.getProcesses()) {
+            ids.add(proc.getId());
+            proc.getFlows().forEach(f -> ids.add(f.getId()));
+        }
+        return ids;
+    }
+
+    /** {@code pools} identical processes, none of them or their flows with an id. */
+    private static String collaboration(int pools) {
+        StringBuilder sb = new StringBuilder("<definitions id=\"D\">");
+        for (int p = 0; p < pools; p++) {
+            sb.append("<process name=\"Pool\">")
+                    .append("<startEvent id=\"s").append(p).append("\"></startEvent>")
+                    .append("<task id=\"t").append(p).append("\"></task>")
+                    .append("<endEvent id=\"e").append(p).append("\"></endEvent>")
+                    .append("<sequenceFlow sourceRef=\"s").append(p).append("\" targetRef=\"t").append(p)
+                    .append("\"></sequenceFlow>")
+                    .append("<sequenceFlow sourceRef=\"t").append(p).append("\" targetRef=\"e").append(p)
+                    .append("\"></sequenceFlow>")
+                    .append("</process>");
+        }
+        return sb.append("</definitions>").toString();
+    }
+}
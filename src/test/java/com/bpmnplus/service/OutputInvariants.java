@@ -0,0 +1,147 @@
+package com.bpmnplus.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Structural checks on converted output, used by
+ * {@link BpmnConvertServiceScalingTest}:
+ * <ul>
+ * <li>every {@code id} in the output is unique;</li>
+ * <li>every sequence flow whose source and target both have a shape has a
+ * {@code BPMNEdge};</li>
+ * <li>every flow that had a condition in the input and leaves a gateway
+ * still has its condition.</li>
+ * </ul>
+ */
+final class OutputInvariants {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+    static {
+        FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    }
+
+    private static final int MAX_REPORTED = 5;
+
+    private OutputInvariants() {
+    }
+
+    /**
+     * Violations found, at most a few per kind; empty if the output holds.
+     */
+    static List<String> check(String input, String output) throws XMLStreamException {
+        Set<String> conditionalInInput = new HashSet<>();
+        scan(input, new Visitor() {
+            String flow;
+
+            @Override
+            public void start(String tag, XMLStreamReader r) {
+                if ("sequenceFlow".equals(tag)) {
+                    flow = attr(r, "id");
+                } else if ("conditionExpression".equals(tag) && flow != null) {
+                    conditionalInInput.add(flow);
+                }
+            }
+
+            @Override
+            public void end(String tag) {
+                if ("sequenceFlow".equals(tag)) {
+                    flow = null;
+                }
+            }
+        });
+
+        Set<String> ids = new HashSet<>();
+        List<String> duplicates = new ArrayList<>();
+        Set<String> gateways = new HashSet<>();
+        Map<String, String[]> flows = new LinkedHashMap<>();
+        Set<String> conditional = new HashSet<>();
+        Set<String> shapes = new HashSet<>();
+        Set<String> edges = new HashSet<>();
+        scan(output, new Visitor() {
+            String flow;
+
+            @Override
+            public void start(String tag, XMLStreamReader r) {
+                String id = attr(r, "id");
+                if (id != null && !ids.add(id)) {
+                    duplicates.add(id);
+                }
+                if (tag.endsWith("Gateway")) {
+                    gateways.add(id);
+                } else if ("sequenceFlow".equals(tag)) {
+                    flow = id;
+                    flows.put(id, new String[] { attr(r, "sourceRef"), attr(r, "targetRef") });
+                } else if ("conditionExpression".equals(tag) && flow != null) {
+                    conditional.add(flow);
+                } else if ("BPMNShape".equals(tag)) {
+                    shapes.add(attr(r, "bpmnElement"));
+                } else if ("BPMNEdge".equals(tag)) {
+                    edges.add(attr(r, "bpmnElement"));
+                }
+            }
+
+            @Override
+            public void end(String tag) {
+                if ("sequenceFlow".equals(tag)) {
+                    flow = null;
+                }
+            }
+        });
+
+        List<String> violations = new ArrayList<>();
+        duplicates.stream().limit(MAX_REPORTED).forEach(id -> violations.add("duplicate id " + id));
+        flows.entrySet().stream()
+                .filter(f -> shapes.contains(f.getValue()[0]) && shapes.contains(f.getValue()[1])
+                        && !edges.contains(f.getKey()))
+                .limit(MAX_REPORTED)
+                .forEach(f -> violations.add("flow " + f.getKey() + " has shaped ends but no BPMNEdge"));
+        flows.entrySet().stream()
+                .filter(f -> conditionalInInput.contains(f.getKey()) && gateways.contains(f.getValue()[0])
+                        && !conditional.contains(f.getKey()))
+                .limit(MAX_REPORTED)
+                .forEach(f -> violations.add("gateway flow " + f.getKey() + " lost its condition"));
+        return violations;
+    }
+
+    private interface Visitor {
+        void start(String tag, XMLStreamReader reader);
+
+        void end(String tag);
+    }
+
+    private static void scan(String xml, Visitor visitor) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(new StringReader(xml));
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    visitor.start(localName(reader.getLocalName()), reader);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    visitor.end(localName(reader.getLocalName()));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    private static String attr(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (name.equals(localName(reader.getAttributeLocalName(i)))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.bpmnplus.service;
+
+/**
+ * Generates BPMN inputs of a requested size for the scaling tests:
+ * well-formed diagrams (the warm-up corpus), and malformed documents aimed at
+ * the parser's regex worst cases (start tags without a closing tag, shapes without
+ * bounds, self-closing flows with no block flow after them).
+ */
+final class SyntheticBpmn {
+
+    private SyntheticBpmn() {
+    }
+
+    /**
+     * A single process with {@code elements} flow nodes chained by sequence
+     * flows: a start event, user and service tasks with an exclusive gateway
+     * every tenth node (whose outgoing flow carries a condition), and an end
+     * event. Every node has a shape, laid out on a grid.
+     */
+    static String diagram(int elements) {
+        return diagram(elements, 1);
+    }
+
+    /**
+     * As {@link #diagram(int)} with {@code processes} such processes (pools)
+     * side by side, which takes the parser's per-process parallel path.
+     */
+    static String diagram(int elements, int processes) {
+        return WarmupCorpus.diagram(elements, processes);
+    }
+
+    /**
+     * {@code count} user tasks whose closing tags are missing.
+     */
+    static String unclosedTasks(int count) {
+        StringBuilder sb = header(count * 60);
+        sb.append("<bpmn:process id=\"Process_1\">\n<bpmn:startEvent id=\"start\"/>\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("<bpmn:userTask id=\"t").append(i).append("\" name=\"Task ").append(i).append("\">\n");
+        }
+        sb.append("</bpmn:process>\n");
+        return footer(sb, false);
+    }
+
+    /**
+     * {@code count} shapes, none of which has {@code Bounds}.
+     */
+    static String shapesWithoutBounds(int count) {
+        StringBuilder sb = header(count * 80);
+        sb.append("<bpmn:process id=\"Process_1\">\n<bpmn:startEvent id=\"start\"/>\n</bpmn:process>\n");
+        sb.append("<bpmndi:BPMNDiagram id=\"Diagram_1\"><bpmndi:BPMNPlane id=\"Plane_1\">\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("<bpmndi:BPMNShape id=\"s").append(i).append("\" bpmnElement=\"start\"></bpmndi:BPMNShape>\n");
+        }
+        return footer(sb, true);
+    }
+
+    /**
+     * {@code count} self-closing sequence flows and no block flow after them.
+     */
+    static String selfClosingFlows(int count) {
+        StringBuilder sb = header(count * 80);
+        sb.append("<bpmn:process id=\"Process_1\">\n<bpmn:startEvent id=\"start\"/>\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("<bpmn:sequenceFlow id=\"f").append(i)
+                    .append("\" sourceRef=\"start\" targetRef=\"start\"/>\n");
+        }
+        sb.append("</bpmn:process>\n");
+        return footer(sb, false);
+    }
+
+    /**
+     * {@code count} process start tags, none of them closed.
+     */
+    static String unclosedProcesses(int count) {
+        StringBuilder sb = header(count * 60);
+        for (int i = 0; i < count; i++) {
+            sb.append("<bpmn:process id=\"p").append(i).append("\"><bpmn:startEvent id=\"s").append(i)
+                    .append("\"/>\n");
+        }
+        return footer(sb, false);
+    }
+
+    private static StringBuilder header(int capacity) {
+        StringBuilder sb = new StringBuilder(capacity + 512);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" ")
+                .append("xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\" ")
+                .append("xmlns:dc=\"http://www.omg.org/spec/DD/20100524/DC\" id=\"Definitions_1\">\n");
+        return sb;
+    }
+
+    private static String footer(StringBuilder sb, boolean diagram) {
+        if (diagram) {
+            sb.append("</bpmndi:BPMNPlane></bpmndi:BPMNDiagram>\n");
+        }
+        sb.append("</bpmn:definitions>\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.bpmnplus.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pins how {@link TagScanner} pairs start and closing tags, and checks that
+ * on closed elements it finds exactly what the lazy regex it replaced,
+ * {@code <tag attrs>(.*?)</tag>} with DOTALL, found.
+ */
+class TagScannerTest {
+
+    private static final Pattern LAZY_TASK = Pattern.compile(
+            "<(?:\\w+:)?task\\b([^>]*)>(.*?)</(?:\\w+:)?task>", Pattern.DOTALL);
+
+    @Test
+    void pairsEachStartTagWithTheFirstClosingTagAfterIt() {
+        List<TagScanner.Tag> tags = TagScanner.scan("<task id=\"a\">x</task> <bpmn:task id=\"b\">y</bpmn:task>", "task");
+
+        assertEquals(2, tags.size());
+        assertEquals(" id=\"a\"", tags.get(0).attrs);
+        assertEquals("x", tags.get(0).body);
+        assertEquals(" id=\"b\"", tags.get(1).attrs);
+        assertEquals("y", tags.get(1).body);
+    }
+
+    @Test
+    void nestedStartTagEndsTheOuterElementAtTheFirstClose() {
+        String text = "<task id=\"outer\"><task id=\"inner\">x</task>tail</task>";
+
+        List<TagScanner.Tag> tags = TagScanner.scan(text, "task");
+
+        assertEquals(1, tags.size());
+        assertEquals(" id=\"outer\"", tags.get(0).attrs);
+        assertEquals("<task id=\"inner\">x", tags.get(0).body);
+        assertEquals(text.indexOf("</task>") + "</task>".length(), tags.get(0).end);
+    }
+
+    @Test
+    void selfClosingTagIsEmptyAndDoesNotPairWithALaterClose() {
+        List<TagScanner.Tag> tags = TagScanner.scan("<task id=\"a\" /><task id=\"b\">x</task>", "task");
+
+        assertEquals(2, tags.size());
+        assertTrue(tags.get(0).selfClosing);
+        assertEquals(" id=\"a\" ", tags.get(0).attrs);
+        assertEquals("", tags.get(0).body);
+        assertFalse(tags.get(1).selfClosing);
+        assertEquals(" id=\"b\"", tags.get(1).attrs);
+        assertEquals("x", tags.get(1).body);
+    }
+
+    @Test
+    void unclosedStartTagIsReportedWithoutBody() {
+        List<TagScanner.Tag> tags = TagScanner.scan("<task id=\"a\">x</task><task id=\"b\">y", "task");
+
+        assertEquals(2, tags.size());
+        assertTrue(tags.get(0).isClosed());
+        assertFalse(tags.get(1).isClosed());
+        assertNull(tags.get(1).body);
+    }
+
+    @Test
+    void flatScanEndsAnUnclosedElementAtTheNextStartTag() {
+        String text = "<BPMNShape id=\"a\"><Bounds x=\"1\"/>"
+                + "<BPMNShape id=\"b\"><Bounds x=\"2\"/></BPMNShape>";
+
+        List<TagScanner.Tag> flat = TagScanner.scanFlat(text, "BPMNShape");
+        List<TagScanner.Tag> nested = TagScanner.scan(text, "BPMNShape");
+
+        assertEquals(2, flat.size());
+        assertEquals("<Bounds x=\"1\"/>", flat.get(0).body);
+        assertEquals(text.indexOf("<BPMNShape id=\"b\""), flat.get(0).end);
+        assertEquals("<Bounds x=\"2\"/>", flat.get(1).body);
+        assertEquals(1, nested.size());
+        assertEquals(" id=\"a\"", nested.get(0).attrs);
+    }
+
+    static Stream<Arguments> documents() {
+        return Stream.of(
+                Arguments.of("sequential", "<task id=\"a\">x</task><task id=\"b\">y</task>"),
+                Arguments.of("nested", "<task id=\"a\"><task id=\"b\">x</task>y</task><task id=\"c\">z</task>"),
+                Arguments.of("deeply nested", "<task id=\"a\"><task id=\"b\"><task id=\"c\">x</task></task></task>"),
+                Arguments.of("unclosed first", "<task id=\"a\">x<task id=\"b\">y</task><task id=\"c\">z</task>"),
+                Arguments.of("unclosed middle", "<task id=\"a\">x</task><task id=\"b\">y<task id=\"c\">z</task>"),
+                Arguments.of("unclosed last", "<task id=\"a\">x</task><task id=\"b\">y"),
+                Arguments.of("stray close", "</task><task id=\"a\">x</task></task>"),
+                Arguments.of("mixed prefixes", "<bpmn:task id=\"a\">\nx\n</task><task id=\"b\">y</bpmn2:task>"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("documents")
+    void closedElementsMatchTheLazyRegex(String name, String text) {
+        assertEquals(lazyRegex(text), closed(text));
+    }
+
+    @Test
+    void closedElementsMatchTheLazyRegexOnRandomDocuments() {
+        String[] tokens = { "<task id=\"a\">", "<bpmn:task name=\"b\">", "</task>", "</bpmn:task>", "text", "\n",
+                "<other>", "</other>", "<taskX>" };
+        Random random = new Random(42);
+        for (int doc = 0; doc < 500; doc++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                text.append(tokens[random.nextInt(tokens.length)]);
+            }
+            assertEquals(lazyRegex(text.toString()), closed(text.toString()), text.toString());
+        }
+    }
+
+    /** Start, end, attributes and body of each closed, non-self-closing element TagScanner finds. */
+    private static List<String> closed(String text) {
+        List<String> found = new ArrayList<>();
+        for (TagScanner.Tag tag : TagScanner.scan(text, "task")) {
+            if (tag.isClosed() && !tag.selfClosing) {
+                found.add(tag.start + ".." + tag.end + " [" + tag.attrs + "] " + tag.body);
+            }
+        }
+        return found;
+    }
+
+    /** The same for each match of the lazy regex, found repeatedly from the end of the last match. */
+    private static List<String> lazyRegex(String text) {
+        List<String> found = new ArrayList<>();
+        Matcher m = LAZY_TASK.matcher(text);
+        while (m.find()) {
+            found.add(m.start() + ".." + m.end() + " [" + m.group(1) + "] " + m.group(2));
+        }
+        return found;
+    }
+}